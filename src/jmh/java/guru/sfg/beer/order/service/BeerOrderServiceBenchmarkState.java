@@ -0,0 +1,187 @@
+package guru.sfg.beer.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
+import guru.sfg.beer.order.service.repositories.CustomerRepository;
+import guru.sfg.beer.order.service.services.beer.BeerServiceImpl;
+import guru.sfg.brewery.model.BeerDto;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.jms.ConnectionFactory;
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Boots the whole service against in-memory H2 and embedded Artemis, with the beer service stubbed by WireMock,
+ * and creates one order to run the benchmarks against. The scheduled tasting room orders are disabled so they do
+ * not compete with the measured code.
+ */
+@State(Scope.Benchmark)
+public class BeerOrderServiceBenchmarkState {
+
+	public static final int ORDER_LINES = 5;
+
+	private WireMockServer wireMockServer;
+	private ConfigurableApplicationContext context;
+	private Customer customer;
+	private UUID beerOrderId;
+
+	@Setup(Level.Trial)
+	public void start() throws Exception {
+		wireMockServer = new WireMockServer(wireMockConfig().dynamicPort());
+		wireMockServer.start();
+
+		BeerDto beerDto = BeerDto.builder()
+				.id(UUID.randomUUID())
+				.beerName("Mango Bobs")
+				.beerStyle("IPA")
+				.upc("0631234200036")
+				.price(new BigDecimal("12.95"))
+				.build();
+		wireMockServer.stubFor(get(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*"))
+				.willReturn(okJson(new ObjectMapper().findAndRegisterModules().writeValueAsString(beerDto))));
+
+		context = new SpringApplicationBuilder(BeerOrderServiceApplication.class, BenchmarkConfig.class)
+				.run("--spring.main.web-application-type=none",
+						"--spring.profiles.active=benchmark",
+						"--spring.artemis.mode=embedded",
+						"--spring.cloud.discovery.enabled=false",
+						"--eureka.client.enabled=false",
+						"--spring.zipkin.enabled=false",
+						"--logging.level.guru=warn",
+						"--sfg.brewery.beer-service-host=http://localhost:" + wireMockServer.port());
+
+		beerOrderId = createBeerOrder().getId();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+		wireMockServer.stop();
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	public UUID getBeerOrderId() {
+		return beerOrderId;
+	}
+
+	public BeerOrder findBeerOrder() {
+		return getBean(BeerOrderRepository.class).findById(beerOrderId).orElseThrow();
+	}
+
+	/**
+	 * Creates orders of the benchmark customer in addition to the one created on start-up.
+	 */
+	public List<UUID> createBeerOrders(int count) {
+		List<UUID> beerOrderIds = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			beerOrderIds.add(createBeerOrder().getId());
+		}
+		return beerOrderIds;
+	}
+
+	/**
+	 * Puts the orders back to the given status with a single update statement.
+	 */
+	public void resetStatus(Collection<UUID> beerOrderIds, BeerOrderStatusEnum statusEnum) {
+		EntityManager entityManager = getBean(EntityManager.class);
+
+		getBean(TransactionTemplate.class).executeWithoutResult(status -> entityManager
+				.createQuery("update BeerOrder set orderStatus = :status, version = version + 1 where id in :ids")
+				.setParameter("status", statusEnum)
+				.setParameter("ids", beerOrderIds)
+				.executeUpdate());
+	}
+
+	/**
+	 * Removes the messages waiting on a queue that has no consumer in the benchmark, returning how many there were.
+	 */
+	public int drainQueue(String destination) {
+		JmsTemplate jmsTemplate = new JmsTemplate(getBean(ConnectionFactory.class));
+		jmsTemplate.setReceiveTimeout(JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT);
+
+		int drained = 0;
+		while (jmsTemplate.receive(destination) != null) {
+			drained++;
+		}
+		return drained;
+	}
+
+	private BeerOrder createBeerOrder() {
+		if (customer == null) {
+			customer = getBean(CustomerRepository.class).saveAndFlush(Customer.builder()
+					.customerName("Benchmark Customer")
+					.apiKey(UUID.randomUUID())
+					.build());
+		}
+
+		BeerOrder beerOrder = BeerOrder.builder()
+				.customer(customer)
+				.customerRef("benchmark")
+				.orderStatus(BeerOrderStatusEnum.NEW)
+				.build();
+
+		Set<BeerOrderLine> lines = new HashSet<>();
+		for (int i = 0; i < ORDER_LINES; i++) {
+			lines.add(BeerOrderLine.builder()
+					.beerOrder(beerOrder)
+					.upc("063123420003" + i)
+					.orderQuantity(i + 1)
+					.quantityAllocated(0)
+					.build());
+		}
+		beerOrder.setBeerOrderLines(lines);
+
+		return getBean(BeerOrderRepository.class).saveAndFlush(beerOrder);
+	}
+
+	@Configuration
+	static class BenchmarkConfig {
+
+		@Bean
+		static BeanDefinitionRegistryPostProcessor disableTastingRoom() {
+			return new BeanDefinitionRegistryPostProcessor() {
+				@Override
+				public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+					registry.removeBeanDefinition("tastingRoomService");
+				}
+
+				@Override
+				public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package guru.sfg.beer.order.service.config;
+
+import guru.sfg.beer.order.service.BeerOrderServiceBenchmarkState;
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter.WireFormat;
+import guru.sfg.beer.order.service.web.mappers.BeerOrderMapper;
+import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.events.AllocateOrderRequest;
+import guru.sfg.brewery.model.events.AllocateOrderResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of allocation messages by the converter configured in {@link JmsConfig}, in each wire format, using
+ * message objects created by a session on the embedded broker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JmsMessageConversionBenchmark {
+
+	@Param({"JSON", "SMILE"})
+	private WireFormat wireFormat;
+
+	private WireFormatMessageConverter messageConverter;
+	private Connection connection;
+	private Session session;
+
+	private AllocateOrderRequest allocateOrderRequest;
+	private AllocateOrderResult allocateOrderResult;
+	private Message allocateOrderRequestMessage;
+	private Message allocateOrderResultMessage;
+
+	@Setup(Level.Trial)
+	public void setUp(BeerOrderServiceBenchmarkState app) throws JMSException {
+		messageConverter = app.getBean(WireFormatMessageConverter.class);
+		connection = app.getBean(ConnectionFactory.class).createConnection();
+		session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+		BeerOrderDto beerOrderDto = app.getBean(BeerOrderMapper.class).beerOrderToDto(app.findBeerOrder());
+		beerOrderDto.getBeerOrderLines().forEach(line -> line.setQuantityAllocated(line.getOrderQuantity()));
+
+		allocateOrderRequest = AllocateOrderRequest.builder().beerOrderDto(beerOrderDto).build();
+		allocateOrderResult = AllocateOrderResult.builder()
+				.beerOrderDto(beerOrderDto)
+				.allocationError(false)
+				.pendingInventory(false)
+				.build();
+		allocateOrderRequestMessage = messageConverter.toMessage(allocateOrderRequest, session, wireFormat);
+		allocateOrderResultMessage = messageConverter.toMessage(allocateOrderResult, session, wireFormat);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws JMSException {
+		connection.close();
+	}
+
+	@Benchmark
+	public Message allocateOrderRequestToMessage() throws JMSException {
+		return messageConverter.toMessage(allocateOrderRequest, session, wireFormat);
+	}
+
+	@Benchmark
+	public Object allocateOrderRequestFromMessage() throws JMSException {
+		return messageConverter.fromMessage(allocateOrderRequestMessage);
+	}
+
+	@Benchmark
+	public Message allocateOrderResultToMessage() throws JMSException {
+		return messageConverter.toMessage(allocateOrderResult, session, wireFormat);
+	}
+
+	@Benchmark
+	public Object allocateOrderResultFromMessage() throws JMSException {
+		return messageConverter.fromMessage(allocateOrderResultMessage);
+	}
+}
@@ -0,0 +1,77 @@
+package guru.sfg.beer.order.service.services;
+
+import guru.sfg.beer.order.service.BeerOrderServiceBenchmarkState;
+import guru.sfg.beer.order.service.config.JmsConfig;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event dispatch through {@link BeerOrderManagerImpl}: loading the order, running the transition and saving the new
+ * status. Every iteration is one batch of {@value #ORDERS} transitions, one per order. The orders are put back to
+ * VALIDATED before the batch with a single update, so the reset is not part of the measurement. The score is the
+ * time of the whole batch.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(batchSize = BeerOrderManagerBenchmark.ORDERS)
+@Measurement(batchSize = BeerOrderManagerBenchmark.ORDERS)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BeerOrderManagerBenchmark {
+
+	public static final int ORDERS = 200;
+
+	private BeerOrderServiceBenchmarkState app;
+	private BeerOrderManager beerOrderManager;
+	private List<UUID> beerOrderIds;
+	private int nextOrder;
+
+	@Setup(Level.Trial)
+	public void setUp(BeerOrderServiceBenchmarkState app) {
+		this.app = app;
+		this.beerOrderManager = app.getBean(BeerOrderManager.class);
+		this.beerOrderIds = app.createBeerOrders(ORDERS);
+	}
+
+	/**
+	 * Nothing consumes the allocation requests in the benchmark, so the ones sent by the previous batch are drained.
+	 */
+	@Setup(Level.Iteration)
+	public void resetOrders() {
+		app.drainQueue(JmsConfig.ALLOCATE_ORDER_QUEUE);
+		app.resetStatus(beerOrderIds, BeerOrderStatusEnum.VALIDATED);
+		nextOrder = 0;
+	}
+
+	/**
+	 * VALIDATED -> ALLOCATION_PENDING, including the allocation request sent by AllocateOrderAction.
+	 */
+	@Benchmark
+	public void allocateOrder() {
+		beerOrderManager.processValidationPassed(nextOrderId());
+	}
+
+	/**
+	 * VALIDATED -> CANCELLED, a transition without an action.
+	 */
+	@Benchmark
+	public void cancelOrder() {
+		beerOrderManager.cancelOrder(nextOrderId());
+	}
+
+	private UUID nextOrderId() {
+		return beerOrderIds.get(nextOrder++);
+	}
+}
@@ -0,0 +1,46 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.BeerOrderServiceBenchmarkState;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status save done by {@link BeerOrderStateChangeInterceptor#saveStatus} against H2. The status alternates between
+ * ALLOCATION_PENDING and ALLOCATED, so every compare-and-set update matches and writes a real change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BeerOrderStateChangeInterceptorBenchmark {
+
+	private BeerOrderStateChangeInterceptor interceptor;
+	private String orderId;
+	private boolean toggle;
+
+	@Setup(Level.Trial)
+	public void setUp(BeerOrderServiceBenchmarkState app) {
+		interceptor = app.getBean(BeerOrderStateChangeInterceptor.class);
+		orderId = app.getBeerOrderId().toString();
+		app.resetStatus(Collections.singleton(app.getBeerOrderId()), BeerOrderStatusEnum.ALLOCATION_PENDING);
+	}
+
+	@Benchmark
+	public void saveStatus() {
+		toggle = !toggle;
+		if (toggle) {
+			interceptor.saveStatus(orderId, BeerOrderStatusEnum.ALLOCATION_PENDING, BeerOrderStatusEnum.ALLOCATED);
+		} else {
+			interceptor.saveStatus(orderId, BeerOrderStatusEnum.ALLOCATED, BeerOrderStatusEnum.ALLOCATION_PENDING);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static guru.sfg.beer.order.service.services.BeerOrderManagerImpl.ORDER_ID_HEADER;
+
+/**
+ * Compares the per-event cost of the transition engines for NEW -> VALIDATION_PENDING. Actions and the status save
+ * are no-ops so only the engine overhead is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BeerOrderTransitionEngineBenchmark {
+
+	private AnnotationConfigApplicationContext context;
+	private StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+	private BeerOrderStateChangeInterceptor interceptor;
+	private BeerOrderTransitionEngine pooledEngine;
+	private BeerOrderTransitionEngine tableEngine;
+	private UUID beerOrderId;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		Action<BeerOrderStatusEnum, BeerOrderEventEnum> noOp = context -> { };
+
+		context = new AnnotationConfigApplicationContext();
+		context.registerBean("validateOrderAction", Action.class, () -> noOp);
+		context.registerBean("allocateOrderAction", Action.class, () -> noOp);
+		context.registerBean("validateFailureAction", Action.class, () -> noOp);
+		context.registerBean("allocationFailureAction", Action.class, () -> noOp);
+		context.registerBean("deallocateOrderAction", Action.class, () -> noOp);
+		context.register(BeerOrderStateMachineConfig.class);
+		context.refresh();
+
+		stateMachineFactory = context.getBean(StateMachineFactory.class);
+		interceptor = new BeerOrderStateChangeInterceptor(null, new BeerOrderStatusNotifier(), null) {
+			@Override
+			public boolean saveStatus(String orderId, BeerOrderStatusEnum fromStatus, BeerOrderStatusEnum statusEnum) {
+				return true;
+			}
+		};
+		pooledEngine = new SpringStateMachineTransitionEngine(
+				new BeerOrderStateMachinePool(stateMachineFactory, interceptor, new SimpleMeterRegistry(), 16));
+		tableEngine = new TableDrivenTransitionEngine(stateMachineFactory, interceptor);
+		beerOrderId = UUID.randomUUID();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean factoryPerEvent() {
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = stateMachineFactory.getStateMachine(beerOrderId);
+
+		sm.stop();
+		sm.getStateMachineAccessor().doWithAllRegions(sma -> {
+			sma.addStateMachineInterceptor(interceptor);
+			sma.resetStateMachine(new DefaultStateMachineContext<>(BeerOrderStatusEnum.NEW, null, null, null));
+		});
+		sm.start();
+
+		Message<BeerOrderEventEnum> msg = MessageBuilder.withPayload(BeerOrderEventEnum.VALIDATE_ORDER)
+				.setHeader(ORDER_ID_HEADER, beerOrderId.toString())
+				.build();
+		return sm.sendEvent(msg);
+	}
+
+	@Benchmark
+	public boolean pooledStateMachine() {
+		return pooledEngine.sendEvent(beerOrderId, BeerOrderStatusEnum.NEW, BeerOrderEventEnum.VALIDATE_ORDER);
+	}
+
+	@Benchmark
+	public boolean tableDriven() {
+		return tableEngine.sendEvent(beerOrderId, BeerOrderStatusEnum.NEW, BeerOrderEventEnum.VALIDATE_ORDER);
+	}
+}
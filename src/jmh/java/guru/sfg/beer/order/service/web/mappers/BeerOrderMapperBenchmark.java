@@ -0,0 +1,39 @@
+package guru.sfg.beer.order.service.web.mappers;
+
+import guru.sfg.beer.order.service.BeerOrderServiceBenchmarkState;
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.brewery.model.BeerOrderDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps an order with {@link BeerOrderServiceBenchmarkState#ORDER_LINES} lines, including the beer lookups made by
+ * {@link BeerOrderLineMapperDecorator} against the stubbed beer service.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class BeerOrderMapperBenchmark {
+
+	private BeerOrderMapper beerOrderMapper;
+	private BeerOrder beerOrder;
+
+	@Setup(Level.Trial)
+	public void setUp(BeerOrderServiceBenchmarkState app) {
+		this.beerOrderMapper = app.getBean(BeerOrderMapper.class);
+		this.beerOrder = app.findBeerOrder();
+	}
+
+	@Benchmark
+	public BeerOrderDto beerOrderToDto() {
+		return beerOrderMapper.beerOrderToDto(beerOrder);
+	}
+}
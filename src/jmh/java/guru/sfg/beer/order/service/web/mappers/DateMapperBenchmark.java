@@ -0,0 +1,32 @@
+package guru.sfg.beer.order.service.web.mappers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class DateMapperBenchmark {
+
+	private final DateMapper dateMapper = new DateMapper();
+	private final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+	private final OffsetDateTime offsetDateTime = OffsetDateTime.now();
+
+	@Benchmark
+	public OffsetDateTime asOffsetDateTime() {
+		return dateMapper.asOffsetDateTime(timestamp);
+	}
+
+	@Benchmark
+	public Timestamp asTimestamp() {
+		return dateMapper.asTimestamp(offsetDateTime);
+	}
+}
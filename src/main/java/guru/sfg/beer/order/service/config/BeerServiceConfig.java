@@ -0,0 +1,74 @@
+package guru.sfg.beer.order.service.config;
+
+import guru.sfg.beer.order.service.services.beer.BeerServiceCallGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client for the beer service: pooled connections with connect/read timeouts, a bounded executor for the
+ * asynchronous lookups and the bulkhead/circuit breaker guarding every call.
+ */
+@Configuration
+public class BeerServiceConfig {
+
+	public static final String BEER_SERVICE_REST_TEMPLATE = "beerServiceRestTemplate";
+	public static final String BEER_SERVICE_TASK_EXECUTOR = "beerServiceTaskExecutor";
+
+	@Bean
+	public HttpComponentsClientHttpRequestFactory beerServiceRequestFactory(
+			@Value("${sfg.brewery.beer-service.max-connections:50}") int maxConnections,
+			@Value("${sfg.brewery.beer-service.connect-timeout:2s}") Duration connectTimeout,
+			@Value("${sfg.brewery.beer-service.read-timeout:5s}") Duration readTimeout) {
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+		HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.evictIdleConnections(30, TimeUnit.SECONDS)
+				.build());
+		requestFactory.setConnectTimeout((int) connectTimeout.toMillis());
+		requestFactory.setConnectionRequestTimeout((int) connectTimeout.toMillis());
+		requestFactory.setReadTimeout((int) readTimeout.toMillis());
+		return requestFactory;
+	}
+
+	@Bean(BEER_SERVICE_REST_TEMPLATE)
+	public RestTemplate beerServiceRestTemplate(RestTemplateBuilder restTemplateBuilder,
+												HttpComponentsClientHttpRequestFactory beerServiceRequestFactory) {
+		return restTemplateBuilder.requestFactory(() -> beerServiceRequestFactory).build();
+	}
+
+	@Bean(BEER_SERVICE_TASK_EXECUTOR)
+	public ThreadPoolTaskExecutor beerServiceTaskExecutor(
+			@Value("${sfg.brewery.beer-service.executor-threads:8}") int threads,
+			@Value("${sfg.brewery.beer-service.executor-queue-capacity:200}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("beer-service-");
+		return executor;
+	}
+
+	@Bean
+	public BeerServiceCallGuard beerServiceCallGuard(
+			@Value("${sfg.brewery.beer-service.max-concurrent-calls:20}") int maxConcurrentCalls,
+			@Value("${sfg.brewery.beer-service.max-wait:500ms}") Duration maxWait,
+			@Value("${sfg.brewery.beer-service.circuit-breaker.failure-threshold:5}") int failureThreshold,
+			@Value("${sfg.brewery.beer-service.circuit-breaker.open-duration:30s}") Duration openDuration,
+			MeterRegistry meterRegistry) {
+		return new BeerServiceCallGuard(maxConcurrentCalls, maxWait, failureThreshold, openDuration, meterRegistry);
+	}
+}
@@ -1,12 +1,24 @@
 package guru.sfg.beer.order.service.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
-import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.jms.support.converter.MessageType;
 
+import javax.jms.ConnectionFactory;
+import java.util.Set;
+
+@Slf4j
 @Configuration
 public class JmsConfig {
 
@@ -17,12 +29,55 @@ public class JmsConfig {
 	public static final String ALLOCATE_FAILURE_QUEUE = "allocation-failure";
 	public static final String DEALLOCATE_ORDER_QUEUE = "deallocate-order";
 
-	@Bean // Serialize message content to json using TextMessage
-	public MessageConverter jacksonJmsMessageConverter(ObjectMapper objectMapper) {
+	@Bean // Serialize message content to json using TextMessage, or to Smile for the configured destinations
+	public WireFormatMessageConverter jacksonJmsMessageConverter(ObjectMapper objectMapper,
+			Jackson2ObjectMapperBuilder objectMapperBuilder,
+			@Value("${sfg.brewery.jms.smile-destinations:}") Set<String> smileDestinations) {
 		MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
 		converter.setTargetType(MessageType.TEXT);
-		converter.setTypeIdPropertyName("_type");
+		converter.setTypeIdPropertyName(WireFormatMessageConverter.TYPE_ID_PROPERTY);
 		converter.setObjectMapper(objectMapper);
-		return converter;
+
+		ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+		return new WireFormatMessageConverter(converter, objectMapper, smileMapper, smileDestinations);
+	}
+
+	/**
+	 * Listener containers with Spring Boot's defaults and a default concurrency range; listeners override it per
+	 * destination with {@code sfg.brewery.jms.concurrency.<queue>}. The work of concurrent consumers is serialized per
+	 * order by {@link guru.sfg.beer.order.service.services.OrderAffinityDispatcher}.
+	 */
+	@Bean
+	public DefaultJmsListenerContainerFactory jmsListenerContainerFactory(
+			DefaultJmsListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory,
+			@Value("${sfg.brewery.jms.concurrency.default:1-4}") String concurrency) {
+		DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+		configurer.configure(factory, connectionFactory);
+		factory.setConcurrency(concurrency);
+		return factory;
+	}
+
+	/**
+	 * Sets the Artemis consumer window (the number of bytes buffered per consumer ahead of receive, 1 MiB by
+	 * default). A small window spreads messages across concurrent consumers instead of letting the first one prefetch
+	 * the queue.
+	 */
+	@Bean
+	public static BeanPostProcessor artemisConsumerWindowPostProcessor(
+			@Value("${sfg.brewery.jms.consumer-window-size:1048576}") int consumerWindowSize) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				ConnectionFactory target = bean instanceof CachingConnectionFactory
+						? ((CachingConnectionFactory) bean).getTargetConnectionFactory()
+						: bean instanceof ConnectionFactory ? (ConnectionFactory) bean : null;
+
+				if (target instanceof ActiveMQConnectionFactory) {
+					log.debug("Setting Artemis consumer window size to [{}]", consumerWindowSize);
+					((ActiveMQConnectionFactory) target).setConsumerWindowSize(consumerWindowSize);
+				}
+				return bean;
+			}
+		};
 	}
 }
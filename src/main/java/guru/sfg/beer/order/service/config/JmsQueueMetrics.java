@@ -0,0 +1,126 @@
+package guru.sfg.beer.order.service.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.api.core.management.ResourceNames;
+import org.apache.activemq.artemis.api.jms.management.JMSManagementHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumer lag of the queues this service consumes, read from the Artemis management address: the number of waiting
+ * messages ({@code beer.order.jms.queue.depth}) and the age of the oldest one ({@code beer.order.jms.queue.oldest.age}).
+ * Each sample is two management requests per queue, however many messages are waiting.
+ */
+@Slf4j
+@Component
+public class JmsQueueMetrics {
+
+	private static final List<String> CONSUMED_QUEUES =
+			List.of(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE, JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE);
+
+	private final JmsTemplate jmsTemplate;
+	private final String managementAddress;
+	private final long replyTimeoutMillis;
+	private final Map<String, AtomicLong> depths = new LinkedHashMap<>();
+	private final Map<String, AtomicLong> oldestAges = new LinkedHashMap<>();
+
+	public JmsQueueMetrics(JmsTemplate jmsTemplate, MeterRegistry meterRegistry,
+						   @Value("${sfg.brewery.jms.metrics.management-address:activemq.management}") String managementAddress,
+						   @Value("${sfg.brewery.jms.metrics.reply-timeout:1000}") long replyTimeoutMillis) {
+		this.jmsTemplate = jmsTemplate;
+		this.managementAddress = managementAddress;
+		this.replyTimeoutMillis = replyTimeoutMillis;
+
+		CONSUMED_QUEUES.forEach(queue -> {
+			AtomicLong depth = new AtomicLong();
+			AtomicLong oldestAge = new AtomicLong();
+			depths.put(queue, depth);
+			oldestAges.put(queue, oldestAge);
+
+			Gauge.builder("beer.order.jms.queue.depth", depth, AtomicLong::get)
+					.tag("queue", queue)
+					.register(meterRegistry);
+			Gauge.builder("beer.order.jms.queue.oldest.age", oldestAge, AtomicLong::get)
+					.tag("queue", queue)
+					.baseUnit("milliseconds")
+					.register(meterRegistry);
+		});
+	}
+
+	@Scheduled(fixedDelayString = "${sfg.brewery.jms.metrics.interval:10000}")
+	public void sample() {
+		CONSUMED_QUEUES.forEach(queue -> {
+			try {
+				jmsTemplate.execute(session -> {
+					depths.get(queue).set(request(session, queue, "messageCount"));
+					oldestAges.get(queue).set(request(session, queue, "firstMessageAge"));
+					return null;
+				}, true);
+			} catch (JmsException e) {
+				log.debug("Failed to sample queue [{}]: {}", queue, e.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * Reads a numeric attribute of the queue's {@code QueueControl}; an empty queue has no first message age, which is
+	 * reported as 0.
+	 */
+	private long request(Session session, String queue, String attribute) throws JMSException {
+		TemporaryQueue replyQueue = session.createTemporaryQueue();
+		MessageProducer producer = session.createProducer(session.createQueue(managementAddress));
+		MessageConsumer consumer = session.createConsumer(replyQueue);
+
+		try {
+			Message request = session.createMessage();
+			request.setJMSReplyTo(replyQueue);
+			JMSManagementHelper.putAttribute(request, ResourceNames.QUEUE + queue, attribute);
+			producer.send(request);
+
+			Message reply = consumer.receive(replyTimeoutMillis);
+			if (reply == null) {
+				throw new JMSException("No reply from " + managementAddress + " within " + replyTimeoutMillis + " ms");
+			}
+			if (!JMSManagementHelper.hasOperationSucceeded(reply)) {
+				throw new JMSException("Reading " + attribute + " of " + queue + " failed: "
+						+ result(reply));
+			}
+
+			Object result = result(reply);
+			return result instanceof Number ? ((Number) result).longValue() : 0;
+		} finally {
+			JmsUtils.closeMessageConsumer(consumer);
+			JmsUtils.closeMessageProducer(producer);
+			replyQueue.delete();
+		}
+	}
+
+	private static Object result(Message reply) throws JMSException {
+		try {
+			return JMSManagementHelper.getResult(reply);
+		} catch (JMSException e) {
+			throw e;
+		} catch (Exception e) {
+			JMSException jmsException = new JMSException("Unreadable management reply: " + e.getMessage());
+			jmsException.setLinkedException(e);
+			throw jmsException;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package guru.sfg.beer.order.service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.util.ClassUtils;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Converts order events to JSON text messages or, for the destinations configured with
+ * {@code sfg.brewery.jms.smile-destinations}, to Smile encoded bytes messages. Both carry the payload class in the
+ * {@code _type} property; Smile messages are marked with {@value #CONTENT_TYPE_PROPERTY} so they can be told apart
+ * when read. Everything without that mark is read as JSON, which keeps consumers and producers that only know JSON
+ * working.
+ * <p>
+ * A payload can also be {@link #encode encoded} up front and turned into a message later, which is how the outbox
+ * stores what it sends.
+ */
+public class WireFormatMessageConverter implements MessageConverter {
+
+	public static final String TYPE_ID_PROPERTY = "_type";
+	public static final String CONTENT_TYPE_PROPERTY = "_contentType";
+	public static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+
+	public static final String JSON_CONTENT_TYPE = "application/json";
+
+	public enum WireFormat {
+		JSON(JSON_CONTENT_TYPE), SMILE(SMILE_CONTENT_TYPE);
+
+		private final String contentType;
+
+		WireFormat(String contentType) {
+			this.contentType = contentType;
+		}
+
+		public String getContentType() {
+			return contentType;
+		}
+
+		public static WireFormat forContentType(String contentType) {
+			return Arrays.stream(values())
+					.filter(wireFormat -> wireFormat.contentType.equals(contentType))
+					.findFirst()
+					.orElseThrow(() -> new MessageConversionException("Unknown content type " + contentType));
+		}
+	}
+
+	private final MessageConverter jsonConverter;
+	private final ObjectMapper jsonMapper;
+	private final ObjectMapper smileMapper;
+	private final Set<String> smileDestinations;
+
+	public WireFormatMessageConverter(MessageConverter jsonConverter, ObjectMapper jsonMapper, ObjectMapper smileMapper,
+									  Set<String> smileDestinations) {
+		this.jsonConverter = jsonConverter;
+		this.jsonMapper = jsonMapper;
+		this.smileMapper = smileMapper;
+		this.smileDestinations = smileDestinations;
+	}
+
+	public WireFormat wireFormat(String destination) {
+		return smileDestinations.contains(destination) ? WireFormat.SMILE : WireFormat.JSON;
+	}
+
+	/**
+	 * Converts to JSON, the format every consumer understands.
+	 */
+	@Override
+	public Message toMessage(Object object, Session session) throws JMSException {
+		return jsonConverter.toMessage(object, session);
+	}
+
+	public Message toMessage(Object object, Session session, String destination) throws JMSException {
+		return toMessage(object, session, wireFormat(destination));
+	}
+
+	public Message toMessage(Object object, Session session, WireFormat wireFormat) throws JMSException {
+		if (wireFormat == WireFormat.JSON) {
+			return jsonConverter.toMessage(object, session);
+		}
+		return toMessage(encode(object, wireFormat), object.getClass().getName(), wireFormat, session);
+	}
+
+	/**
+	 * The message body {@link #toMessage(Object, Session, WireFormat)} would send for the object.
+	 */
+	public byte[] encode(Object object, WireFormat wireFormat) {
+		try {
+			return (wireFormat == WireFormat.JSON ? jsonMapper : smileMapper).writeValueAsBytes(object);
+		} catch (IOException e) {
+			throw new MessageConversionException("Could not write " + wireFormat + " message for " + object.getClass(), e);
+		}
+	}
+
+	/**
+	 * Creates the message for a body produced by {@link #encode}, without reading it.
+	 */
+	public Message toMessage(byte[] body, String typeId, WireFormat wireFormat, Session session) throws JMSException {
+		Message message;
+		if (wireFormat == WireFormat.JSON) {
+			message = session.createTextMessage(new String(body, StandardCharsets.UTF_8));
+		} else {
+			BytesMessage bytesMessage = session.createBytesMessage();
+			bytesMessage.writeBytes(body);
+			bytesMessage.setStringProperty(CONTENT_TYPE_PROPERTY, SMILE_CONTENT_TYPE);
+			message = bytesMessage;
+		}
+		message.setStringProperty(TYPE_ID_PROPERTY, typeId);
+		return message;
+	}
+
+	@Override
+	public Object fromMessage(Message message) throws JMSException {
+		if (!SMILE_CONTENT_TYPE.equals(message.getStringProperty(CONTENT_TYPE_PROPERTY))) {
+			return jsonConverter.fromMessage(message);
+		}
+
+		BytesMessage bytesMessage = (BytesMessage) message;
+		bytesMessage.reset();
+		byte[] bytes = new byte[(int) bytesMessage.getBodyLength()];
+		bytesMessage.readBytes(bytes);
+
+		String typeId = message.getStringProperty(TYPE_ID_PROPERTY);
+		try {
+			return smileMapper.readValue(bytes, ClassUtils.forName(typeId, getClass().getClassLoader()));
+		} catch (ClassNotFoundException | IOException e) {
+			throw new MessageConversionException("Could not read Smile message of type " + typeId, e);
+		}
+	}
+}
@@ -9,6 +9,7 @@ import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import java.sql.Timestamp;
@@ -37,6 +38,7 @@ public class BeerOrder extends BaseEntity {
     private String customerRef;
 
     @ManyToOne
+    @JoinColumn(columnDefinition = "binary(16)")
     private Customer customer;
 
     @OneToMany(mappedBy = "beerOrder", cascade = CascadeType.ALL)
@@ -4,8 +4,11 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Type;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import java.sql.Timestamp;
 import java.util.UUID;
@@ -30,8 +33,11 @@ public class BeerOrderLine extends BaseEntity {
     }
 
     @ManyToOne
+    @JoinColumn(columnDefinition = "binary(16)")
     private BeerOrder beerOrder;
 
+    @Type(type = UuidBinaryType.NAME)
+    @Column(length = 16, columnDefinition = "binary(16)")
     private UUID beerId;
     private String upc;
     private Integer orderQuantity = 0;
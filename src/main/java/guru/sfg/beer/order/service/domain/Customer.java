@@ -4,8 +4,11 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
@@ -17,6 +20,8 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Customer extends BaseEntity {
 
     @Builder
@@ -30,8 +35,8 @@ public class Customer extends BaseEntity {
 
     private String customerName;
 
-    @Type(type = "org.hibernate.type.UUIDCharType")
-    @Column(length = 36, columnDefinition = "varchar(36)")
+    @Type(type = UuidBinaryType.NAME)
+    @Column(length = 16, columnDefinition = "binary(16)")
     private UUID apiKey;
 
     @OneToMany(mappedBy = "customer")
@@ -0,0 +1,43 @@
+package guru.sfg.beer.order.service.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Key of a processed JMS message, recorded in the same transaction as its processing so a redelivery can be dropped.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class InboxMessage {
+
+    @Builder
+    public InboxMessage(String messageKey, UUID beerOrderId, Timestamp receivedDate) {
+        this.messageKey = messageKey;
+        this.beerOrderId = beerOrderId;
+        this.receivedDate = receivedDate;
+    }
+
+    @Id
+    @Column(length = 100, updatable = false, nullable = false)
+    private String messageKey;
+
+    @Type(type = UuidBinaryType.NAME)
+    @Column(length = 16, columnDefinition = "binary(16)", updatable = false)
+    private UUID beerOrderId;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Timestamp receivedDate;
+}
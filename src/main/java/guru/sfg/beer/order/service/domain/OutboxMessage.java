@@ -0,0 +1,46 @@
+package guru.sfg.beer.order.service.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * JMS message waiting to be published, written in the same transaction as the order status change that produced it.
+ * The body is stored as it goes on the wire, in the format given by the content type.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class OutboxMessage extends BaseEntity {
+
+    @Builder
+    public OutboxMessage(UUID id, Long version, Timestamp createdDate, Timestamp lastModifiedDate, String destination,
+                         String payloadType, String contentType, byte[] body) {
+        super(id, version, createdDate, lastModifiedDate);
+        this.destination = destination;
+        this.payloadType = payloadType;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(nullable = false)
+    private String payloadType;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] body;
+}
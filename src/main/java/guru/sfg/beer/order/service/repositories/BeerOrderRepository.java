@@ -4,18 +4,125 @@ import guru.sfg.beer.order.service.domain.BeerOrder;
 import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
 import guru.sfg.beer.order.service.domain.Customer;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
+/**
+ * Order listings are read in two phases: a page of order ids first, then the orders of that page with their
+ * customer and lines in one query. Paging a query that fetches the lines collection would either paginate in memory
+ * or load the lines of every order with a separate select.
+ */
 public interface BeerOrderRepository extends JpaRepository<BeerOrder, UUID> {
 
-	Page<BeerOrder> findAllByCustomer(Customer customer, Pageable pageable);
+	default Page<BeerOrder> findAllByCustomer(Customer customer, Pageable pageable) {
+		Page<UUID> ids = findIdsByCustomer(customer, pageable);
+
+		return new PageImpl<>(findAllWithLinesInOrder(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+	}
+
+	/**
+	 * First page of a keyset listing, newest orders first.
+	 */
+	default List<BeerOrder> findAllByCustomerOrderByCreatedDateDescIdDesc(Customer customer, Pageable pageable) {
+		return findAllWithLinesInOrder(findIdsByCustomerOrderByCreatedDateDescIdDesc(customer, pageable));
+	}
+
+	/**
+	 * Orders following the (createdDate, id) position in {@link #findAllByCustomerOrderByCreatedDateDescIdDesc}
+	 * order, seeking on the (customer_id, created_date) index instead of skipping an offset.
+	 */
+	default List<BeerOrder> findAllByCustomerAfter(Customer customer, Timestamp createdDate, UUID id,
+												   Pageable pageable) {
+		return findAllWithLinesInOrder(findIdsByCustomerAfter(customer, createdDate, id, pageable));
+	}
+
+	/**
+	 * Loads the given orders with their lines, keeping the order of {@code ids}.
+	 */
+	default List<BeerOrder> findAllWithLinesInOrder(List<UUID> ids) {
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<UUID, BeerOrder> beerOrdersById = findAllWithLinesByIdIn(ids).stream()
+				.collect(Collectors.toMap(BeerOrder::getId, Function.identity()));
+
+		return ids.stream()
+				.map(beerOrdersById::get)
+				.collect(Collectors.toList());
+	}
+
+	@Query(value = "select o.id from BeerOrder o where o.customer = :customer",
+			countQuery = "select count(o) from BeerOrder o where o.customer = :customer")
+	Page<UUID> findIdsByCustomer(@Param("customer") Customer customer, Pageable pageable);
+
+	@Query("select o.id from BeerOrder o where o.customer = :customer order by o.createdDate desc, o.id desc")
+	List<UUID> findIdsByCustomerOrderByCreatedDateDescIdDesc(@Param("customer") Customer customer,
+															 Pageable pageable);
+
+	@Query("select o.id from BeerOrder o where o.customer = :customer"
+			+ " and (o.createdDate < :createdDate or (o.createdDate = :createdDate and o.id < :id))"
+			+ " order by o.createdDate desc, o.id desc")
+	List<UUID> findIdsByCustomerAfter(@Param("customer") Customer customer,
+									  @Param("createdDate") Timestamp createdDate,
+									  @Param("id") UUID id,
+									  Pageable pageable);
+
+	@Query("select distinct o from BeerOrder o join fetch o.customer left join fetch o.beerOrderLines"
+			+ " where o.id in :ids")
+	@QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	List<BeerOrder> findAllWithLinesByIdIn(@Param("ids") Collection<UUID> ids);
+
+	long countByCustomer(Customer customer);
 
 	List<BeerOrder> findAllByOrderStatus(BeerOrderStatusEnum orderStatusEnum);
 
+	/**
+	 * Customer and reference of an order, without loading it.
+	 */
+	@Query("select o.customer.id as customerId, o.customerRef as customerRef, o.version as version"
+			+ " from BeerOrder o where o.id = :id")
+	Optional<OrderOwner> findOwnerById(@Param("id") UUID id);
+
+	/**
+	 * Compare-and-set status change in a single statement: the order is only updated while it is still in
+	 * {@code expectedStatus}. Returns the number of updated rows, zero when a concurrent change won. Pending changes
+	 * are flushed first, so a loaded order is written with the version it was loaded with.
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("update BeerOrder o set o.orderStatus = :status, o.version = o.version + 1,"
+			+ " o.lastModifiedDate = :lastModifiedDate where o.id = :id and o.orderStatus = :expectedStatus")
+	int updateOrderStatus(@Param("id") UUID id,
+						  @Param("expectedStatus") BeerOrderStatusEnum expectedStatus,
+						  @Param("status") BeerOrderStatusEnum status,
+						  @Param("lastModifiedDate") Timestamp lastModifiedDate);
+
+	interface OrderOwner {
+
+		UUID getCustomerId();
+
+		String getCustomerRef();
+
+		Long getVersion();
+	}
+
 //    @Lock(LockModeType.PESSIMISTIC_WRITE)
 //    BeerOrder findOneById(UUID id);
 }
@@ -2,11 +2,24 @@ package guru.sfg.beer.order.service.repositories;
 
 import guru.sfg.beer.order.service.domain.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
+
+/**
+ * Lookups are marked cacheable for the Hibernate query cache, which is only used when it is enabled. Prefer
+ * {@link guru.sfg.beer.order.service.services.customer.CustomerCache} for reads.
+ */
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Customer> findAllByCustomerNameLike(String customerName);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Optional<Customer> findByApiKey(UUID apiKey);
 }
@@ -0,0 +1,16 @@
+package guru.sfg.beer.order.service.repositories;
+
+import guru.sfg.beer.order.service.domain.InboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+
+public interface InboxMessageRepository extends JpaRepository<InboxMessage, String> {
+
+	@Modifying
+	@Query("delete from InboxMessage m where m.receivedDate < :cutoff")
+	int deleteReceivedBefore(@Param("cutoff") Timestamp cutoff);
+}
@@ -0,0 +1,16 @@
+package guru.sfg.beer.order.service.repositories;
+
+import guru.sfg.beer.order.service.domain.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, UUID> {
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	List<OutboxMessage> findAllByOrderByCreatedDateAscIdAsc(Pageable pageable);
+}
@@ -0,0 +1,68 @@
+package guru.sfg.beer.order.service.services;
+
+import guru.sfg.beer.order.service.domain.BeerOrder;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a customer's order listing, the (createdDate, id) of the last order returned. Clients only see it as
+ * an opaque URL-safe token.
+ */
+public final class BeerOrderCursor {
+
+	private static final int TOKEN_BYTES = Long.BYTES + Integer.BYTES + 2 * Long.BYTES;
+
+	private final Timestamp createdDate;
+	private final UUID id;
+
+	public BeerOrderCursor(Timestamp createdDate, UUID id) {
+		this.createdDate = createdDate;
+		this.id = id;
+	}
+
+	public static BeerOrderCursor after(BeerOrder beerOrder) {
+		return new BeerOrderCursor(beerOrder.getCreatedDate(), beerOrder.getId());
+	}
+
+	public static BeerOrderCursor decode(String token) {
+		byte[] bytes;
+		try {
+			bytes = Base64.getUrlDecoder().decode(token);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid order cursor: " + token, e);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		long seconds = bytes.length == TOKEN_BYTES ? buffer.getLong() : -1;
+		int nanos = bytes.length == TOKEN_BYTES ? buffer.getInt() : -1;
+
+		if (seconds < 0 || nanos < 0 || nanos > 999_999_999) {
+			throw new IllegalArgumentException("Invalid order cursor: " + token);
+		}
+		Timestamp createdDate = new Timestamp(seconds * 1000);
+		createdDate.setNanos(nanos);
+
+		return new BeerOrderCursor(createdDate, new UUID(buffer.getLong(), buffer.getLong()));
+	}
+
+	public String encode() {
+		ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES)
+				.putLong(Math.floorDiv(createdDate.getTime(), 1000L))
+				.putInt(createdDate.getNanos())
+				.putLong(id.getMostSignificantBits())
+				.putLong(id.getLeastSignificantBits());
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+	}
+
+	public Timestamp getCreatedDate() {
+		return createdDate;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+}
@@ -2,15 +2,22 @@ package guru.sfg.beer.order.service.services;
 
 import guru.sfg.beer.order.service.domain.BeerOrder;
 import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.events.AllocateOrderResult;
+import guru.sfg.brewery.model.events.ValidateOrderResult;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface BeerOrderManager {
 
 	BeerOrder newBeerOrder(BeerOrder beerOrder);
 
+	List<BeerOrder> newBeerOrders(List<BeerOrder> beerOrders);
+
 	void processValidationResult(UUID beerOrderId, Boolean isValid);
 
+	void processValidationResults(List<ValidateOrderResult> validateOrderResults);
+
 	void processValidationPassed(UUID beerOrderId);
 
 	void beerOrderAllocationPassed(BeerOrderDto beerOrder);
@@ -19,6 +26,8 @@ public interface BeerOrderManager {
 
 	void beerOrderAllocationFailed(BeerOrderDto beerOrder);
 
+	void processAllocationResults(List<AllocateOrderResult> allocateOrderResults);
+
 	void beerOrderPickedUp(UUID id);
 
 	void cancelOrder(UUID id);
@@ -2,25 +2,28 @@ package guru.sfg.beer.order.service.services;
 
 import guru.sfg.beer.order.service.domain.BeerOrder;
 import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
-import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.beer.order.service.domain.TimeOrderedUuidGenerator;
 import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
-import guru.sfg.beer.order.service.sm.BeerOrderStateChangeInterceptor;
+import guru.sfg.beer.order.service.sm.BeerOrderTransitionEngine;
 import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.events.AllocateOrderResult;
+import guru.sfg.brewery.model.events.ValidateOrderResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
-import org.springframework.statemachine.StateMachine;
-import org.springframework.statemachine.config.StateMachineFactory;
-import org.springframework.statemachine.support.DefaultStateMachineContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.ALLOCATE_ORDER;
 import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.ALLOCATION_FAILED;
@@ -29,10 +32,7 @@ import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.ALLOCATION_S
 import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.VALIDATE_ORDER;
 import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.VALIDATION_FAILED;
 import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.VALIDATION_PASSED;
-import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.ALLOCATED;
 import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.NEW;
-import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.PENDING_INVENTORY;
-import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.VALIDATED;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -41,22 +41,55 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
 
 	public static final String ORDER_ID_HEADER = "beer_order_id_header";
 
-	private final StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+	private final BeerOrderTransitionEngine beerOrderTransitionEngine;
 	private final BeerOrderRepository beerOrderRepository;
-	private final BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor;
 	private final EntityManager entityManager;
+	private final OrderAffinityDispatcher orderAffinityDispatcher;
+	private final PlatformTransactionManager transactionManager;
 
-	@Transactional
+	/**
+	 * Creates the order in its own transaction on the lane of the order, whose id is assigned up front.
+	 */
 	@Override
 	public BeerOrder newBeerOrder(BeerOrder beerOrder) {
 		log.debug("Creating new order...");
-		beerOrder.setId(null);
-		beerOrder.setOrderStatus(NEW);
+		assignNewOrder(beerOrder);
+
+		return orderAffinityDispatcher.execute(beerOrder.getId(), () -> inTransaction(() -> {
+			BeerOrder savedBeerOrder = beerOrderRepository.saveAndFlush(beerOrder);
+			log.debug("New order id: [{}]", savedBeerOrder.getId());
+			sendBeerOrderEvent(savedBeerOrder, VALIDATE_ORDER);
+			return savedBeerOrder;
+		}));
+	}
+
+	/**
+	 * Persists all orders with a single flush, so their inserts and the inserts of their lines go out as JDBC
+	 * batches, then starts the validation of each. The validation requests are stored in the outbox in the same
+	 * transaction and relayed together once it commits. The transaction holds the lanes of all orders.
+	 */
+	@Override
+	public List<BeerOrder> newBeerOrders(List<BeerOrder> beerOrders) {
+		log.debug("Creating [{}] new orders...", beerOrders.size());
+		beerOrders.forEach(this::assignNewOrder);
+
+		return orderAffinityDispatcher.executeAll(
+				beerOrders.stream().map(BeerOrder::getId).collect(Collectors.toList()), () -> inTransaction(() -> {
+					List<BeerOrder> savedBeerOrders = beerOrderRepository.saveAll(beerOrders);
+					beerOrderRepository.flush();
+
+					savedBeerOrders.forEach(beerOrder -> sendBeerOrderEvent(beerOrder, VALIDATE_ORDER));
+					return savedBeerOrders;
+				}));
+	}
 
-		BeerOrder savedBeerOrder = beerOrderRepository.saveAndFlush(beerOrder);
-		log.debug("New order id: [{}]", savedBeerOrder.getId());
-		sendBeerOrderEvent(savedBeerOrder, VALIDATE_ORDER);
-		return savedBeerOrder;
+	private void assignNewOrder(BeerOrder beerOrder) {
+		beerOrder.setId(TimeOrderedUuidGenerator.generate());
+		beerOrder.setOrderStatus(NEW);
+		if (beerOrder.getBeerOrderLines() != null) {
+			// line ids are generated, whatever a client sent
+			beerOrder.getBeerOrderLines().forEach(beerOrderLine -> beerOrderLine.setId(null));
+		}
 	}
 
 	@Transactional
@@ -70,11 +103,10 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
 		beerOrderOptional.ifPresentOrElse(beerOrder -> {
 			if (isValid) {
 				log.debug("Order is valid");
-				sendBeerOrderEvent(beerOrder, VALIDATION_PASSED);
-				//wait for status change
-				awaitForStatus(beerOrderId, VALIDATED);
-				BeerOrder validatedOrder = beerOrderRepository.findById(beerOrderId).get();
-				sendBeerOrderEvent(validatedOrder, ALLOCATE_ORDER);
+				// the transition runs on this thread, so the order is validated once the event is accepted
+				if (sendBeerOrderEvent(beerOrder, VALIDATION_PASSED)) {
+					sendBeerOrderEvent(beerOrder, ALLOCATE_ORDER);
+				}
 			} else {
 				log.debug("Order is not valid");
 				sendBeerOrderEvent(beerOrder, VALIDATION_FAILED);
@@ -82,6 +114,21 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
 		}, () -> log.error("Order Not Found. Id: {}", beerOrderId));
 	}
 
+	/**
+	 * Processes a batch of validation results in one transaction. All referenced orders are loaded with a single
+	 * query up front, so the per-result lookups are served from the persistence context.
+	 */
+	@Transactional
+	@Override
+	public void processValidationResults(List<ValidateOrderResult> validateOrderResults) {
+		log.debug("Process [{}] validation results", validateOrderResults.size());
+		beerOrderRepository.findAllById(validateOrderResults.stream()
+				.map(ValidateOrderResult::getOrderId)
+				.collect(Collectors.toSet()));
+
+		validateOrderResults.forEach(result -> processValidationResult(result.getOrderId(), result.getIsValid()));
+	}
+
 	@Transactional
 	@Override
 	public void processValidationPassed(UUID beerOrderId) {
@@ -92,45 +139,67 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
 		}, () -> log.error("Order Not Found. Id: {}", beerOrderId));
 	}
 
+	@Transactional
 	@Override
 	public void beerOrderAllocationPassed(BeerOrderDto beerOrderDto) {
 		log.debug("Beer order allocation passed [{}]", beerOrderDto.getId());
 		Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(beerOrderDto.getId());
 
 		beerOrderOptional.ifPresentOrElse(beerOrder -> {
-			sendBeerOrderEvent(beerOrder, ALLOCATION_SUCCESS);
-			awaitForStatus(beerOrder.getId(), ALLOCATED);
-			updateAllocatedQty(beerOrderDto);
+			if (sendBeerOrderEvent(beerOrder, ALLOCATION_SUCCESS)) {
+				updateAllocatedQty(beerOrderDto);
+			}
 		}, () -> log.error("Order Id Not Found: {}", beerOrderDto.getId()));
 	}
 
+	@Transactional
 	@Override
 	public void beerOrderAllocationPendingInventory(BeerOrderDto beerOrderDto) {
 		log.debug("Beer order allocation pending inventory [{}]", beerOrderDto.getId());
 		Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(beerOrderDto.getId());
 
 		beerOrderOptional.ifPresentOrElse(beerOrder -> {
-			sendBeerOrderEvent(beerOrder, ALLOCATION_NO_INVENTORY);
-			awaitForStatus(beerOrder.getId(), PENDING_INVENTORY);
-			updateAllocatedQty(beerOrderDto);
+			if (sendBeerOrderEvent(beerOrder, ALLOCATION_NO_INVENTORY)) {
+				updateAllocatedQty(beerOrderDto);
+			}
 		}, () -> log.error("Order Id Not Found: {}", beerOrderDto.getId()));
 	}
 
+	/**
+	 * Applies the allocated quantities of the result to the order lines, matched by line id. Only the lines whose
+	 * quantity changed are modified, so the flush sends one JDBC batch of line updates and leaves the order row
+	 * untouched. Lines of the result without an allocated quantity are ignored, so a slim result carrying just the
+	 * changed lines is applied as well as a full order.
+	 * <p>
+	 * The order is loaded again, as the status change detached the copy loaded before it.
+	 */
 	private void updateAllocatedQty(BeerOrderDto beerOrderDto) {
-		log.debug("Updating allocated quantity [{}]", beerOrderDto.getId());
-		Optional<BeerOrder> allocatedOrderOptional = beerOrderRepository.findById(beerOrderDto.getId());
-
-		allocatedOrderOptional.ifPresentOrElse(allocatedOrder -> {
-			allocatedOrder.getBeerOrderLines().forEach(beerOrderLine -> {
-				beerOrderDto.getBeerOrderLines().forEach(beerOrderLineDto -> {
-					if (beerOrderLine.getId().equals(beerOrderLineDto.getId())) {
-						beerOrderLine.setQuantityAllocated(beerOrderLineDto.getQuantityAllocated());
-					}
-				});
-			});
-
-			beerOrderRepository.saveAndFlush(allocatedOrder);
-		}, () -> log.error("Order Not Found. Id: {}", beerOrderDto.getId()));
+		if (beerOrderDto.getBeerOrderLines() == null) {
+			return;
+		}
+		BeerOrder beerOrder = beerOrderRepository.findById(beerOrderDto.getId()).orElseThrow();
+
+		Map<UUID, Integer> allocatedQuantities = new HashMap<>();
+		beerOrderDto.getBeerOrderLines().forEach(beerOrderLineDto -> {
+			if (beerOrderLineDto.getId() != null && beerOrderLineDto.getQuantityAllocated() != null) {
+				allocatedQuantities.put(beerOrderLineDto.getId(), beerOrderLineDto.getQuantityAllocated());
+			}
+		});
+
+		int changedLines = 0;
+		for (BeerOrderLine beerOrderLine : beerOrder.getBeerOrderLines()) {
+			Integer quantityAllocated = allocatedQuantities.get(beerOrderLine.getId());
+
+			if (quantityAllocated != null && !quantityAllocated.equals(beerOrderLine.getQuantityAllocated())) {
+				beerOrderLine.setQuantityAllocated(quantityAllocated);
+				changedLines++;
+			}
+		}
+
+		if (changedLines > 0) {
+			beerOrderRepository.flush();
+		}
+		log.debug("Updated allocated quantity of [{}] lines of order [{}]", changedLines, beerOrder.getId());
 	}
 
 	@Override
@@ -144,77 +213,64 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
 
 	}
 
+	/**
+	 * Processes a batch of allocation results in one transaction, loading all referenced orders with a single query.
+	 */
+	@Transactional
+	@Override
+	public void processAllocationResults(List<AllocateOrderResult> allocateOrderResults) {
+		log.debug("Process [{}] allocation results", allocateOrderResults.size());
+		beerOrderRepository.findAllById(allocateOrderResults.stream()
+				.map(result -> result.getBeerOrderDto().getId())
+				.collect(Collectors.toSet()));
+
+		allocateOrderResults.forEach(result -> {
+			if (!result.getAllocationError() && !result.getPendingInventory()) {
+				beerOrderAllocationPassed(result.getBeerOrderDto());
+			} else if (!result.getAllocationError() && result.getPendingInventory()) {
+				beerOrderAllocationPendingInventory(result.getBeerOrderDto());
+			} else if (result.getAllocationError()) {
+				beerOrderAllocationFailed(result.getBeerOrderDto());
+			}
+		});
+	}
+
 	@Override
 	public void beerOrderPickedUp(UUID id) {
 		log.debug("Beer order picked up [{}]", id);
-		Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(id);
+		orderAffinityDispatcher.execute(id, () -> {
+			Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(id);
 
-		beerOrderOptional.ifPresentOrElse(beerOrder -> {
-			//do process
-			sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.BEER_ORDER_PICKED_UP);
-		}, () -> log.error("Order Not Found. Id: {}", id));
+			beerOrderOptional.ifPresentOrElse(beerOrder -> {
+				//do process
+				sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.BEER_ORDER_PICKED_UP);
+			}, () -> log.error("Order Not Found. Id: {}", id));
+		});
 	}
 
 	@Override
 	public void cancelOrder(UUID id) {
-		beerOrderRepository.findById(id).ifPresentOrElse(beerOrder -> {
+		orderAffinityDispatcher.execute(id, () -> beerOrderRepository.findById(id).ifPresentOrElse(beerOrder -> {
 			sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.CANCEL_ORDER);
-		}, () -> log.error("Order Not Found. Id: " + id));
+		}, () -> log.error("Order Not Found. Id: " + id)));
 	}
 
-	private void sendBeerOrderEvent(BeerOrder beerOrder, BeerOrderEventEnum eventEnum) {
+	/**
+	 * Returns false if the event is not accepted in the current status of the order, such as a duplicate or late
+	 * result; the transition has run on this thread once it returns true.
+	 */
+	private boolean sendBeerOrderEvent(BeerOrder beerOrder, BeerOrderEventEnum eventEnum) {
 		log.debug("Sending event [{}] for order [{}]", eventEnum, beerOrder.getId());
-		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = build(beerOrder);
-		Message msg = MessageBuilder.withPayload(eventEnum)
-				.setHeader(ORDER_ID_HEADER, beerOrder.getId().toString())
-				.build();
-		sm.sendEvent(msg);
-	}
-
-	private void awaitForStatus(UUID beerOrderId, BeerOrderStatusEnum statusEnum) {
-
-		AtomicBoolean found = new AtomicBoolean(false);
-		AtomicInteger loopCount = new AtomicInteger(0);
-
-		while (!found.get()) {
-			if (loopCount.incrementAndGet() > 10) {
-				found.set(true);
-				log.debug("Loop Retries exceeded");
-			}
+		boolean accepted = beerOrderTransitionEngine.sendEvent(beerOrder.getId(), beerOrder.getOrderStatus(), eventEnum);
 
-			beerOrderRepository.findById(beerOrderId).ifPresentOrElse(beerOrder -> {
-				if (beerOrder.getOrderStatus().equals(statusEnum)) {
-					found.set(true);
-					log.debug("Order Found");
-				} else {
-					log.debug("Order Status Not Equal. Expected: {}, Found: {}",
-							statusEnum.name(), beerOrder.getOrderStatus().name());
-				}
-			}, () -> {
-				log.debug("Order Id Not Found");
-			});
-
-			if (!found.get()) {
-				try {
-					log.debug("Sleeping for retry");
-					Thread.sleep(100);
-				} catch (Exception e) {
-					// do nothing
-				}
-			}
+		if (!accepted) {
+			log.warn("Event [{}] not accepted for order [{}] in status [{}]", eventEnum, beerOrder.getId(),
+					beerOrder.getOrderStatus());
 		}
+		return accepted;
 	}
 
-	private StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> build(BeerOrder beerOrder) {
-		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = stateMachineFactory.getStateMachine(beerOrder.getId());
-
-		sm.stop();
-		sm.getStateMachineAccessor().doWithAllRegions(sma -> {
-			sma.addStateMachineInterceptor(beerOrderStateChangeInterceptor);
-			sma.resetStateMachine(new DefaultStateMachineContext<>(beerOrder.getOrderStatus(), null, null, null));
-		});
-		sm.start();
-
-		return sm;
+	private <T> T inTransaction(Supplier<T> work) {
+		return new TransactionTemplate(transactionManager).execute(status -> work.get());
 	}
 }
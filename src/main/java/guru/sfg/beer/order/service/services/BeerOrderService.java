@@ -1,18 +1,44 @@
 package guru.sfg.beer.order.service.services;
 
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.brewery.model.BeerOrderCursorList;
 import guru.sfg.brewery.model.BeerOrderDto;
 import guru.sfg.brewery.model.BeerOrderPagedList;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 
 public interface BeerOrderService {
     BeerOrderPagedList listOrders(UUID customerId, Pageable pageable);
 
+    /**
+     * Keyset listing, newest orders first, continuing after {@code cursor} or from the start when it is null.
+     */
+    BeerOrderCursorList listOrders(UUID customerId, BeerOrderCursor cursor, int pageSize, boolean includeTotal);
+
+    /**
+     * Streams the customer's orders to {@code outputStream} as NDJSON; all filters are optional.
+     */
+    void exportOrders(UUID customerId, BeerOrderStatusEnum status, OffsetDateTime from, OffsetDateTime to,
+                      OutputStream outputStream) throws IOException;
+
     BeerOrderDto placeOrder(UUID customerId, BeerOrderDto beerOrderDto);
 
+    List<BeerOrderDto> placeOrders(UUID customerId, List<BeerOrderDto> beerOrderDtos);
+
     BeerOrderDto getOrderById(UUID customerId, UUID orderId);
 
     void pickupOrder(UUID customerId, UUID orderId);
+
+    /**
+     * Opens a Server-Sent Events stream of the customer's order status changes, empty when too many are open.
+     */
+    Optional<SseEmitter> streamStatusUpdates(UUID customerId);
 }
@@ -4,8 +4,11 @@ import guru.sfg.beer.order.service.domain.BeerOrder;
 import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
 import guru.sfg.beer.order.service.domain.Customer;
 import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
-import guru.sfg.beer.order.service.repositories.CustomerRepository;
+import guru.sfg.beer.order.service.services.customer.CustomerCache;
+import guru.sfg.beer.order.service.services.export.BeerOrderExporter;
+import guru.sfg.beer.order.service.services.status.BeerOrderStatusStreams;
 import guru.sfg.beer.order.service.web.mappers.BeerOrderMapper;
+import guru.sfg.brewery.model.BeerOrderCursorList;
 import guru.sfg.brewery.model.BeerOrderDto;
 import guru.sfg.brewery.model.BeerOrderPagedList;
 import lombok.RequiredArgsConstructor;
@@ -13,9 +16,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -26,22 +36,21 @@ import java.util.stream.Collectors;
 public class BeerOrderServiceImpl implements BeerOrderService {
 
 	private final BeerOrderRepository beerOrderRepository;
-	private final CustomerRepository customerRepository;
+	private final CustomerCache customerCache;
 	private final BeerOrderMapper beerOrderMapper;
 	private final BeerOrderManager beerOrderManager;
+	private final BeerOrderExporter beerOrderExporter;
+	private final BeerOrderStatusStreams beerOrderStatusStreams;
 
 	@Override
 	public BeerOrderPagedList listOrders(UUID customerId, Pageable pageable) {
-		Optional<Customer> customerOptional = customerRepository.findById(customerId);
+		Optional<Customer> customerOptional = customerCache.findById(customerId);
 
 		if (customerOptional.isPresent()) {
 			Page<BeerOrder> beerOrderPage =
 					beerOrderRepository.findAllByCustomer(customerOptional.get(), pageable);
 
-			return new BeerOrderPagedList(beerOrderPage
-					.stream()
-					.map(beerOrderMapper::beerOrderToDto)
-					.collect(Collectors.toList()), PageRequest.of(
+			return new BeerOrderPagedList(beerOrderMapper.beerOrdersToDto(beerOrderPage.getContent()), PageRequest.of(
 					beerOrderPage.getPageable().getPageNumber(),
 					beerOrderPage.getPageable().getPageSize()),
 					beerOrderPage.getTotalElements());
@@ -50,10 +59,54 @@ public class BeerOrderServiceImpl implements BeerOrderService {
 		}
 	}
 
-	@Transactional
+	@Override
+	public BeerOrderCursorList listOrders(UUID customerId, BeerOrderCursor cursor, int pageSize, boolean includeTotal) {
+		Optional<Customer> customerOptional = customerCache.findById(customerId);
+
+		if (customerOptional.isPresent()) {
+			Customer customer = customerOptional.get();
+			// one extra row tells whether there is a next page without counting
+			PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+
+			List<BeerOrder> beerOrders = cursor == null
+					? beerOrderRepository.findAllByCustomerOrderByCreatedDateDescIdDesc(customer, pageRequest)
+					: beerOrderRepository.findAllByCustomerAfter(customer, cursor.getCreatedDate(), cursor.getId(),
+					pageRequest);
+
+			String nextCursor = null;
+			if (beerOrders.size() > pageSize) {
+				beerOrders = beerOrders.subList(0, pageSize);
+				nextCursor = BeerOrderCursor.after(beerOrders.get(pageSize - 1)).encode();
+			}
+
+			return BeerOrderCursorList.builder()
+					.content(beerOrderMapper.beerOrdersToDto(beerOrders))
+					.nextCursor(nextCursor)
+					.totalElements(includeTotal ? beerOrderRepository.countByCustomer(customer) : null)
+					.build();
+		} else {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer Not Found");
+		}
+	}
+
+	@Override
+	public void exportOrders(UUID customerId, BeerOrderStatusEnum status, OffsetDateTime from, OffsetDateTime to,
+							 OutputStream outputStream) throws IOException {
+		Optional<Customer> customerOptional = customerCache.findById(customerId);
+
+		if (customerOptional.isPresent()) {
+			beerOrderExporter.export(customerOptional.get(), status,
+					from != null ? Timestamp.from(from.toInstant()) : null,
+					to != null ? Timestamp.from(to.toInstant()) : null,
+					outputStream);
+		} else {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer Not Found");
+		}
+	}
+
 	@Override
 	public BeerOrderDto placeOrder(UUID customerId, BeerOrderDto beerOrderDto) {
-		Optional<Customer> customerOptional = customerRepository.findById(customerId);
+		Optional<Customer> customerOptional = customerCache.findById(customerId);
 
 		if (customerOptional.isPresent()) {
 			BeerOrder beerOrder = beerOrderMapper.dtoToBeerOrder(beerOrderDto);
@@ -73,6 +126,32 @@ public class BeerOrderServiceImpl implements BeerOrderService {
 		throw new RuntimeException("Customer Not Found");
 	}
 
+	@Override
+	public List<BeerOrderDto> placeOrders(UUID customerId, List<BeerOrderDto> beerOrderDtos) {
+		Optional<Customer> customerOptional = customerCache.findById(customerId);
+
+		if (customerOptional.isPresent()) {
+			List<BeerOrder> beerOrders = beerOrderDtos.stream()
+					.map(beerOrderDto -> {
+						BeerOrder beerOrder = beerOrderMapper.dtoToBeerOrder(beerOrderDto);
+						beerOrder.setId(null); //should not be set by outside client
+						beerOrder.setCustomer(customerOptional.get());
+						beerOrder.setOrderStatus(BeerOrderStatusEnum.NEW);
+
+						beerOrder.getBeerOrderLines().forEach(line -> line.setBeerOrder(beerOrder));
+						return beerOrder;
+					})
+					.collect(Collectors.toList());
+
+			List<BeerOrder> savedBeerOrders = beerOrderManager.newBeerOrders(beerOrders);
+
+			log.debug("Saved [{}] Beer Orders for customer: {}", savedBeerOrders.size(), customerId);
+
+			return beerOrderMapper.beerOrdersToDto(savedBeerOrders);
+		}
+		throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer Not Found");
+	}
+
 	@Override
 	public BeerOrderDto getOrderById(UUID customerId, UUID orderId) {
 		return beerOrderMapper.beerOrderToDto(getOrder(customerId, orderId));
@@ -83,8 +162,16 @@ public class BeerOrderServiceImpl implements BeerOrderService {
 		beerOrderManager.beerOrderPickedUp(orderId);
 	}
 
+	@Override
+	public Optional<SseEmitter> streamStatusUpdates(UUID customerId) {
+		if (customerCache.findById(customerId).isPresent()) {
+			return beerOrderStatusStreams.subscribe(customerId);
+		}
+		throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer Not Found");
+	}
+
 	private BeerOrder getOrder(UUID customerId, UUID orderId) {
-		Optional<Customer> customerOptional = customerRepository.findById(customerId);
+		Optional<Customer> customerOptional = customerCache.findById(customerId);
 
 		if (customerOptional.isPresent()) {
 			Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(orderId);
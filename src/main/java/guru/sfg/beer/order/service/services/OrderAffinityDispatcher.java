@@ -0,0 +1,178 @@
+package guru.sfg.beer.order.service.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs work for an order on one of a fixed set of single-threaded lanes chosen by the order id, so everything done
+ * for one order is executed sequentially while different orders run in parallel. Callers wait for the result; work
+ * dispatched from a lane thread for an order of the same lane runs inline.
+ * <p>
+ * Work spanning several orders, such as a batch of results processed in one transaction, runs on the caller's thread
+ * while the lanes of all its orders are held. Lanes are taken in a fixed order, so two such callers cannot deadlock,
+ * and work running on a lane must not dispatch for an order of another lane.
+ * <p>
+ * Every mutating entry point goes through here: new orders, pickup and cancellation in {@link BeerOrderManagerImpl},
+ * and the result listeners around their inbox check, which shares the transaction of the processing.
+ */
+@Slf4j
+@Component
+public class OrderAffinityDispatcher {
+
+	private final Lane[] lanes;
+
+	public OrderAffinityDispatcher(MeterRegistry meterRegistry,
+								   @Value("${sfg.brewery.order-lanes:0}") int laneCount) {
+		int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+		this.lanes = new Lane[count];
+
+		for (int i = 0; i < count; i++) {
+			lanes[i] = new Lane("order-lane-" + i);
+		}
+		meterRegistry.gauge("beer.order.lanes.queued", lanes,
+				l -> Arrays.stream(l).mapToInt(lane -> lane.executor.getQueue().size()).sum());
+	}
+
+	public void execute(UUID beerOrderId, Runnable task) {
+		execute(beerOrderId, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	public <T> T execute(UUID beerOrderId, Supplier<T> task) {
+		Lane lane = lane(beerOrderId);
+
+		if (Thread.currentThread() == lane.thread) {
+			return task.get();
+		}
+
+		return await(beerOrderId, lane.executor.submit(task::get));
+	}
+
+	public void executeAll(Collection<UUID> beerOrderIds, Runnable task) {
+		executeAll(beerOrderIds, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Runs the work on the caller's thread once the lanes of all orders have finished their earlier work, and keeps
+	 * them from starting other work until it is done.
+	 */
+	public <T> T executeAll(Collection<UUID> beerOrderIds, Supplier<T> task) {
+		SortedSet<Integer> laneIndexes = new TreeSet<>();
+		beerOrderIds.forEach(beerOrderId -> laneIndexes.add(laneIndex(beerOrderId)));
+
+		Deque<CountDownLatch> held = new ArrayDeque<>(laneIndexes.size());
+		try {
+			for (int laneIndex : laneIndexes) {
+				Lane lane = lanes[laneIndex];
+
+				if (Thread.currentThread() != lane.thread) {
+					held.push(lane.hold());
+				}
+			}
+			return task.get();
+		} finally {
+			held.forEach(CountDownLatch::countDown);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		Arrays.stream(lanes).forEach(lane -> lane.executor.shutdown());
+	}
+
+	private Lane lane(UUID beerOrderId) {
+		return lanes[laneIndex(beerOrderId)];
+	}
+
+	private int laneIndex(UUID beerOrderId) {
+		return Math.floorMod(beerOrderId.hashCode(), lanes.length);
+	}
+
+	private static <T> T await(UUID beerOrderId, Future<T> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.cancel(false);
+			throw new RuntimeException("Interrupted waiting for order " + beerOrderId, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static class Lane {
+		private final ThreadPoolExecutor executor;
+		private volatile Thread thread;
+
+		private Lane(String name) {
+			this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+					runnable -> {
+						thread = new Thread(runnable, name);
+						thread.setDaemon(true);
+						return thread;
+					});
+		}
+
+		/**
+		 * Parks the lane thread until the returned latch is released, returning once it is parked.
+		 */
+		private CountDownLatch hold() {
+			CountDownLatch parked = new CountDownLatch(1);
+			CountDownLatch released = new CountDownLatch(1);
+
+			Future<?> holding = executor.submit(() -> {
+				parked.countDown();
+				boolean interrupted = false;
+				while (released.getCount() > 0) {
+					try {
+						released.await();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			});
+
+			try {
+				parked.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				released.countDown();
+				holding.cancel(false);
+				throw new RuntimeException("Interrupted waiting for an order lane", e);
+			}
+			return released;
+		}
+	}
+}
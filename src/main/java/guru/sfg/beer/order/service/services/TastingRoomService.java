@@ -3,7 +3,7 @@ package guru.sfg.beer.order.service.services;
 import guru.sfg.beer.order.service.bootstrap.BeerOrderBootStrap;
 import guru.sfg.beer.order.service.domain.Customer;
 import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
-import guru.sfg.beer.order.service.repositories.CustomerRepository;
+import guru.sfg.beer.order.service.services.customer.CustomerCache;
 import guru.sfg.brewery.model.BeerOrderDto;
 import guru.sfg.brewery.model.BeerOrderLineDto;
 import lombok.extern.slf4j.Slf4j;
@@ -20,14 +20,14 @@ import java.util.UUID;
 @Slf4j
 public class TastingRoomService {
 
-	private final CustomerRepository customerRepository;
+	private final CustomerCache customerCache;
 	private final BeerOrderService beerOrderService;
 	private final BeerOrderRepository beerOrderRepository;
 	private final List<String> beerUpcs = new ArrayList<>(3);
 
-	public TastingRoomService(CustomerRepository customerRepository, BeerOrderService beerOrderService,
+	public TastingRoomService(CustomerCache customerCache, BeerOrderService beerOrderService,
 							  BeerOrderRepository beerOrderRepository) {
-		this.customerRepository = customerRepository;
+		this.customerCache = customerCache;
 		this.beerOrderService = beerOrderService;
 		this.beerOrderRepository = beerOrderRepository;
 
@@ -40,7 +40,7 @@ public class TastingRoomService {
 	@Scheduled(fixedRate = 2000) // run every 2 seconds
 	public void placeTastingRoomOrder() {
 
-		List<Customer> customerList = customerRepository.findAllByCustomerNameLike(BeerOrderBootStrap.TASTING_ROOM);
+		List<Customer> customerList = customerCache.findAllByCustomerNameLike(BeerOrderBootStrap.TASTING_ROOM);
 
 		if (customerList.size() == 1) { //should be just one
 			doPlaceOrder(customerList.get(0));
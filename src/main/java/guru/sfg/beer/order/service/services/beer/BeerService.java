@@ -2,12 +2,24 @@ package guru.sfg.beer.order.service.services.beer;
 
 import guru.sfg.brewery.model.BeerDto;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface BeerService {
 
     Optional<BeerDto> getBeerById(UUID uuid);
 
     Optional<BeerDto> getBeerByUpc(String upc);
+
+    CompletableFuture<Optional<BeerDto>> getBeerByIdAsync(UUID uuid);
+
+    CompletableFuture<Optional<BeerDto>> getBeerByUpcAsync(String upc);
+
+    /**
+     * Resolves all given UPCs with as few remote calls as possible. UPCs without a beer are absent from the result.
+     */
+    Map<String, BeerDto> getBeersByUpc(Collection<String> upcs);
 }
@@ -0,0 +1,141 @@
+package guru.sfg.beer.order.service.services.beer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead and circuit breaker for calls to the beer service.
+ * <p>
+ * At most {@code maxConcurrentCalls} calls run at once; a caller waits up to {@code maxWait} for a free slot.
+ * After {@code failureThreshold} consecutive failures the circuit opens and calls are rejected for
+ * {@code openDuration}, after which a single trial call decides whether it closes again. Client errors (4xx) are
+ * answers from a healthy service and do not count as failures.
+ */
+@Slf4j
+public class BeerServiceCallGuard {
+
+	enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final Semaphore permits;
+	private final long maxWaitMillis;
+	private final int failureThreshold;
+	private final long openMillis;
+
+	private final Clock clock;
+	private final Counter bulkheadRejections;
+	private final Counter circuitRejections;
+
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+
+	public BeerServiceCallGuard(int maxConcurrentCalls, Duration maxWait, int failureThreshold, Duration openDuration,
+								MeterRegistry meterRegistry) {
+		this(maxConcurrentCalls, maxWait, failureThreshold, openDuration, meterRegistry, Clock.systemUTC());
+	}
+
+	BeerServiceCallGuard(int maxConcurrentCalls, Duration maxWait, int failureThreshold, Duration openDuration,
+						 MeterRegistry meterRegistry, Clock clock) {
+		this.permits = new Semaphore(maxConcurrentCalls);
+		this.maxWaitMillis = maxWait.toMillis();
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openDuration.toMillis();
+		this.clock = clock;
+
+		this.bulkheadRejections = meterRegistry.counter("beer.service.calls.rejected", "reason", "bulkhead");
+		this.circuitRejections = meterRegistry.counter("beer.service.calls.rejected", "reason", "circuit");
+		meterRegistry.gauge("beer.service.circuit.open", this, guard -> guard.getState() == State.CLOSED ? 0 : 1);
+	}
+
+	public <T> T call(Supplier<T> call) {
+		acquirePermit();
+
+		try {
+			if (!allowRequest()) {
+				circuitRejections.increment();
+				throw new BeerServiceUnavailableException("Beer service circuit is open");
+			}
+
+			// recorded in finally so that any throwable, errors included, ends a half-open trial
+			boolean answered = false;
+			try {
+				T result = call.get();
+				answered = true;
+				return result;
+			} catch (HttpClientErrorException e) {
+				answered = true;
+				throw e;
+			} finally {
+				if (answered) {
+					onSuccess();
+				} else {
+					onFailure();
+				}
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	synchronized State getState() {
+		return state;
+	}
+
+	private void acquirePermit() {
+		try {
+			if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+				bulkheadRejections.increment();
+				throw new BeerServiceUnavailableException("Too many concurrent beer service calls");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BeerServiceUnavailableException("Interrupted waiting for a beer service call slot", e);
+		}
+	}
+
+	private synchronized boolean allowRequest() {
+		switch (state) {
+			case OPEN:
+				if (clock.millis() - openedAt < openMillis) {
+					return false;
+				}
+				log.debug("Beer service circuit half open, sending trial call");
+				state = State.HALF_OPEN;
+				return true;
+			case HALF_OPEN:
+				return false;
+			default:
+				return true;
+		}
+	}
+
+	private synchronized void onSuccess() {
+		if (state != State.CLOSED) {
+			log.info("Beer service circuit closed");
+		}
+		state = State.CLOSED;
+		consecutiveFailures = 0;
+	}
+
+	private synchronized void onFailure() {
+		consecutiveFailures++;
+
+		if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+			if (state != State.OPEN) {
+				log.warn("Beer service circuit opened after {} consecutive failures", consecutiveFailures);
+			}
+			state = State.OPEN;
+			openedAt = clock.millis();
+		}
+	}
+}
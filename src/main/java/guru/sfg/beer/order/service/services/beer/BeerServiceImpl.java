@@ -1,40 +1,138 @@
 package guru.sfg.beer.order.service.services.beer;
 
+import guru.sfg.beer.order.service.config.BeerServiceConfig;
 import guru.sfg.brewery.model.BeerDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
-@ConfigurationProperties(prefix = "sfg.brewery", ignoreUnknownFields = false)
+@Slf4j
+@ConfigurationProperties(prefix = "sfg.brewery")
 @Service
 public class BeerServiceImpl implements BeerService {
 
 	public static final String BEER_PATH_V1 = "/api/v1/beer/";
 	public static final String BEER_UPC_PATH_V1 = "/api/v1/beerUpc/";
+	public static final String BEER_UPCS_PATH_V1 = "/api/v1/beerUpcs";
+	public static final String UPC_PARAM = "upc";
 
 	private final RestTemplate restTemplate;
+	private final BeerServiceCallGuard beerServiceCallGuard;
+	private final TaskExecutor beerServiceTaskExecutor;
 
 	private String beerServiceHost;
+	private volatile boolean bulkLookupSupported = true;
 
-	public BeerServiceImpl(RestTemplateBuilder restTemplateBuilder) {
-		this.restTemplate = restTemplateBuilder.build();
+	public BeerServiceImpl(@Qualifier(BeerServiceConfig.BEER_SERVICE_REST_TEMPLATE) RestTemplate restTemplate,
+						   BeerServiceCallGuard beerServiceCallGuard,
+						   @Qualifier(BeerServiceConfig.BEER_SERVICE_TASK_EXECUTOR) TaskExecutor beerServiceTaskExecutor) {
+		this.restTemplate = restTemplate;
+		this.beerServiceCallGuard = beerServiceCallGuard;
+		this.beerServiceTaskExecutor = beerServiceTaskExecutor;
 	}
 
 	@Override
 	public Optional<BeerDto> getBeerById(UUID uuid) {
-		return Optional.of(restTemplate.getForObject(beerServiceHost + BEER_PATH_V1 + uuid.toString(), BeerDto.class));
+		return Optional.ofNullable(beerServiceCallGuard.call(() ->
+				restTemplate.getForObject(beerServiceHost + BEER_PATH_V1 + uuid.toString(), BeerDto.class)));
 	}
 
 	@Override
 	public Optional<BeerDto> getBeerByUpc(String upc) {
-		return Optional.of(restTemplate.getForObject(beerServiceHost + BEER_UPC_PATH_V1 + upc, BeerDto.class));
+		return Optional.ofNullable(beerServiceCallGuard.call(() ->
+				restTemplate.getForObject(beerServiceHost + BEER_UPC_PATH_V1 + upc, BeerDto.class)));
+	}
+
+	@Override
+	public CompletableFuture<Optional<BeerDto>> getBeerByIdAsync(UUID uuid) {
+		return supplyAsync(() -> getBeerById(uuid));
+	}
+
+	@Override
+	public CompletableFuture<Optional<BeerDto>> getBeerByUpcAsync(String upc) {
+		return supplyAsync(() -> getBeerByUpc(upc));
+	}
+
+	/**
+	 * Uses the bulk endpoint of the beer service while it is available. Once the beer service answers that it does
+	 * not have one, the UPCs are looked up one by one from then on. UPCs the beer service does not know are left out
+	 * of the result either way.
+	 */
+	@Override
+	public Map<String, BeerDto> getBeersByUpc(Collection<String> upcs) {
+		Set<String> distinctUpcs = new LinkedHashSet<>(upcs);
+		Map<String, BeerDto> beers = new HashMap<>();
+
+		if (distinctUpcs.isEmpty()) {
+			return beers;
+		}
+
+		if (bulkLookupSupported) {
+			try {
+				BeerDto[] beerDtos = beerServiceCallGuard.call(() ->
+						restTemplate.getForObject(bulkLookupUri(distinctUpcs), BeerDto[].class));
+
+				if (beerDtos != null) {
+					for (BeerDto beerDto : beerDtos) {
+						beers.put(beerDto.getUpc(), beerDto);
+					}
+				}
+				return beers;
+			} catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed
+					| HttpServerErrorException.NotImplemented e) {
+				log.info("Beer service has no bulk UPC lookup ({}), falling back to single lookups",
+						HttpStatus.valueOf(e.getRawStatusCode()));
+				bulkLookupSupported = false;
+			}
+		}
+
+		distinctUpcs.forEach(upc -> {
+			try {
+				getBeerByUpc(upc).ifPresent(beerDto -> beers.put(upc, beerDto));
+			} catch (HttpClientErrorException.NotFound e) {
+				// the bulk lookup leaves unknown UPCs out as well
+				log.debug("Beer with UPC [{}] not found", upc);
+			}
+		});
+		return beers;
 	}
 
 	public void setBeerServiceHost(String beerServiceHost) {
 		this.beerServiceHost = beerServiceHost;
 	}
+
+	private <T> CompletableFuture<T> supplyAsync(Supplier<T> lookup) {
+		try {
+			return CompletableFuture.supplyAsync(lookup, beerServiceTaskExecutor);
+		} catch (TaskRejectedException e) {
+			return CompletableFuture.failedFuture(new BeerServiceUnavailableException("Beer service lookup queue is full", e));
+		}
+	}
+
+	private URI bulkLookupUri(Collection<String> upcs) {
+		return UriComponentsBuilder.fromHttpUrl(beerServiceHost + BEER_UPCS_PATH_V1)
+				.queryParam(UPC_PARAM, upcs.toArray())
+				.encode()
+				.build()
+				.toUri();
+	}
 }
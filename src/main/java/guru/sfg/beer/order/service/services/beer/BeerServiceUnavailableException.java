@@ -0,0 +1,12 @@
+package guru.sfg.beer.order.service.services.beer;
+
+public class BeerServiceUnavailableException extends RuntimeException {
+
+	public BeerServiceUnavailableException(String message) {
+		super(message);
+	}
+
+	public BeerServiceUnavailableException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
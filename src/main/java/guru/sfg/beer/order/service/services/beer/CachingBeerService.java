@@ -0,0 +1,176 @@
+package guru.sfg.beer.order.service.services.beer;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import guru.sfg.beer.order.service.config.BeerServiceConfig;
+import guru.sfg.brewery.model.BeerDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * In-memory beer catalog in front of {@link BeerServiceImpl}, keyed by UPC and by beer id. Entries are refreshed in
+ * the background once they are older than the refresh interval and dropped after the expiry; a beer loaded through
+ * one key is also stored under the other. Lookups that find no beer are not cached.
+ * <p>
+ * Loads and refreshes run on the beer service executor, never on the common fork-join pool, and concurrent lookups of
+ * a missing beer, synchronous or asynchronous, share a single load.
+ */
+@Slf4j
+@Primary
+@Service
+public class CachingBeerService implements BeerService {
+
+	private final BeerServiceImpl beerServiceImpl;
+	private final AsyncLoadingCache<String, BeerDto> beersByUpc;
+	private final AsyncLoadingCache<UUID, BeerDto> beersById;
+
+	@Autowired
+	public CachingBeerService(BeerServiceImpl beerServiceImpl,
+							  MeterRegistry meterRegistry,
+							  @Value("${sfg.brewery.beer-cache.maximum-size:1000}") long maximumSize,
+							  @Value("${sfg.brewery.beer-cache.expire-after-write:1h}") Duration expireAfterWrite,
+							  @Value("${sfg.brewery.beer-cache.refresh-after-write:5m}") Duration refreshAfterWrite,
+							  @Qualifier(BeerServiceConfig.BEER_SERVICE_TASK_EXECUTOR) TaskExecutor beerServiceTaskExecutor) {
+		this(beerServiceImpl, meterRegistry, maximumSize, expireAfterWrite, refreshAfterWrite, Ticker.systemTicker(),
+				beerServiceTaskExecutor);
+	}
+
+	/**
+	 * Takes the clock and the executor of the loads and refreshes, so that tests can control both.
+	 */
+	CachingBeerService(BeerServiceImpl beerServiceImpl, MeterRegistry meterRegistry, long maximumSize,
+					   Duration expireAfterWrite, Duration refreshAfterWrite, Ticker ticker, Executor executor) {
+		this.beerServiceImpl = beerServiceImpl;
+
+		this.beersByUpc = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.refreshAfterWrite(refreshAfterWrite)
+				.ticker(ticker)
+				.executor(executor)
+				.recordStats()
+				.buildAsync(new CacheLoader<String, BeerDto>() {
+					@Override
+					public BeerDto load(String upc) {
+						return loadByUpc(upc);
+					}
+
+					@Override
+					public Map<String, BeerDto> loadAll(Iterable<? extends String> upcs) {
+						return loadAllByUpc(upcs);
+					}
+				});
+		this.beersById = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.refreshAfterWrite(refreshAfterWrite)
+				.ticker(ticker)
+				.executor(executor)
+				.recordStats()
+				.buildAsync(this::loadById);
+
+		CaffeineCacheMetrics.monitor(meterRegistry, beersByUpc.synchronous(), "beer.upc");
+		CaffeineCacheMetrics.monitor(meterRegistry, beersById.synchronous(), "beer.id");
+	}
+
+	@Override
+	public Optional<BeerDto> getBeerById(UUID uuid) {
+		return Optional.ofNullable(whileAccepted(() -> beersById.synchronous().get(uuid)));
+	}
+
+	@Override
+	public Optional<BeerDto> getBeerByUpc(String upc) {
+		return Optional.ofNullable(whileAccepted(() -> beersByUpc.synchronous().get(upc)));
+	}
+
+	@Override
+	public CompletableFuture<Optional<BeerDto>> getBeerByIdAsync(UUID uuid) {
+		return getAsync(() -> beersById.get(uuid));
+	}
+
+	@Override
+	public CompletableFuture<Optional<BeerDto>> getBeerByUpcAsync(String upc) {
+		return getAsync(() -> beersByUpc.get(upc));
+	}
+
+	/**
+	 * Only the UPCs missing from the cache are passed on to {@link BeerServiceImpl}, in a single bulk lookup.
+	 */
+	@Override
+	public Map<String, BeerDto> getBeersByUpc(Collection<String> upcs) {
+		return whileAccepted(() -> beersByUpc.synchronous().getAll(upcs));
+	}
+
+	private CompletableFuture<Optional<BeerDto>> getAsync(Supplier<CompletableFuture<BeerDto>> lookup) {
+		try {
+			return whileAccepted(lookup).thenApply(Optional::ofNullable);
+		} catch (BeerServiceUnavailableException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * A load is rejected when the beer service executor is saturated, which is reported the same way as a full
+	 * bulkhead.
+	 */
+	private static <T> T whileAccepted(Supplier<T> lookup) {
+		try {
+			return lookup.get();
+		} catch (RejectedExecutionException e) {
+			throw new BeerServiceUnavailableException("Beer service lookup queue is full", e);
+		}
+	}
+
+	private BeerDto loadByUpc(String upc) {
+		log.debug("Loading beer by UPC [{}]", upc);
+		BeerDto beerDto = beerServiceImpl.getBeerByUpc(upc).orElse(null);
+
+		if (beerDto != null && beerDto.getId() != null) {
+			beersById.synchronous().put(beerDto.getId(), beerDto);
+		}
+		return beerDto;
+	}
+
+	private Map<String, BeerDto> loadAllByUpc(Iterable<? extends String> upcs) {
+		List<String> missingUpcs = new ArrayList<>();
+		upcs.forEach(missingUpcs::add);
+		log.debug("Loading beers by UPC {}", missingUpcs);
+
+		Map<String, BeerDto> beers = beerServiceImpl.getBeersByUpc(missingUpcs);
+		beers.values().stream()
+				.filter(beerDto -> beerDto.getId() != null)
+				.forEach(beerDto -> beersById.synchronous().put(beerDto.getId(), beerDto));
+		return beers;
+	}
+
+	private BeerDto loadById(UUID uuid) {
+		log.debug("Loading beer by id [{}]", uuid);
+		BeerDto beerDto = beerServiceImpl.getBeerById(uuid).orElse(null);
+
+		if (beerDto != null && beerDto.getUpc() != null) {
+			beersByUpc.synchronous().put(beerDto.getUpc(), beerDto);
+		}
+		return beerDto;
+	}
+}
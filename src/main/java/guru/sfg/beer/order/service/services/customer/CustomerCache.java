@@ -0,0 +1,158 @@
+package guru.sfg.beer.order.service.services.customer;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.repositories.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Read-through cache of customers by id, by API key and by name pattern, in front of {@link CustomerRepository}.
+ * <p>
+ * With {@code sfg.brewery.customer-cache.mode=local} (the default) customers are kept in in-process caches and
+ * handed out detached; every committed insert, update or delete of a customer invalidates the entry for its id and
+ * all API key and name entries, customers change rarely. With {@code hibernate} the lookups go straight to the
+ * repository and are left to the Hibernate second-level and query caches, which need a cache region factory to be
+ * configured.
+ */
+@Slf4j
+@Component
+public class CustomerCache {
+
+	public static final String MODE_LOCAL = "local";
+
+	private final CustomerRepository customerRepository;
+	private final boolean local;
+	private final LoadingCache<UUID, Customer> customersById;
+	private final LoadingCache<UUID, Customer> customersByApiKey;
+	private final LoadingCache<String, List<Customer>> customersByName;
+
+	public CustomerCache(CustomerRepository customerRepository,
+						 EntityManagerFactory entityManagerFactory,
+						 MeterRegistry meterRegistry,
+						 @Value("${sfg.brewery.customer-cache.mode:" + MODE_LOCAL + "}") String mode,
+						 @Value("${sfg.brewery.customer-cache.maximum-size:1000}") long maximumSize,
+						 @Value("${sfg.brewery.customer-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+		this.customerRepository = customerRepository;
+		this.local = MODE_LOCAL.equals(mode);
+
+		this.customersById = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build(id -> customerRepository.findById(id).orElse(null));
+		this.customersByApiKey = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build(apiKey -> customerRepository.findByApiKey(apiKey).orElse(null));
+		this.customersByName = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build(customerRepository::findAllByCustomerNameLike);
+
+		if (local) {
+			CaffeineCacheMetrics.monitor(meterRegistry, customersById, "customer.id");
+			CaffeineCacheMetrics.monitor(meterRegistry, customersByApiKey, "customer.api-key");
+			CaffeineCacheMetrics.monitor(meterRegistry, customersByName, "customer.name");
+			registerInvalidation(entityManagerFactory);
+		}
+		log.debug("Customer cache mode [{}]", mode);
+	}
+
+	public Optional<Customer> findById(UUID id) {
+		return local ? Optional.ofNullable(customersById.get(id)) : customerRepository.findById(id);
+	}
+
+	public Optional<Customer> findByApiKey(UUID apiKey) {
+		return local ? Optional.ofNullable(customersByApiKey.get(apiKey)) : customerRepository.findByApiKey(apiKey);
+	}
+
+	public List<Customer> findAllByCustomerNameLike(String customerName) {
+		return local ? customersByName.get(customerName) : customerRepository.findAllByCustomerNameLike(customerName);
+	}
+
+	private void invalidate(Object id) {
+		log.debug("Invalidating cached customer [{}]", id);
+		customersById.invalidate(id);
+		customersByApiKey.invalidateAll();
+		customersByName.invalidateAll();
+	}
+
+	private void registerInvalidation(EntityManagerFactory entityManagerFactory) {
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		InvalidationListener listener = new InvalidationListener();
+
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+	}
+
+	/**
+	 * Invalidates after commit, so a concurrent lookup cannot cache the old state again while the write is in flight.
+	 */
+	private class InvalidationListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+			PostCommitDeleteEventListener {
+
+		@Override
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			return Customer.class.equals(persister.getMappedClass());
+		}
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			if (event.getEntity() instanceof Customer) {
+				invalidate(event.getId());
+			}
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			if (event.getEntity() instanceof Customer) {
+				invalidate(event.getId());
+			}
+		}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			if (event.getEntity() instanceof Customer) {
+				invalidate(event.getId());
+			}
+		}
+
+		@Override
+		public void onPostInsertCommitFailed(PostInsertEvent event) {
+		}
+
+		@Override
+		public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+		}
+
+		@Override
+		public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package guru.sfg.beer.order.service.services.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.web.mappers.BeerOrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+
+/**
+ * Writes a customer's orders as newline delimited JSON, one order per line, oldest first. The orders are read with a
+ * forward-only cursor and evicted from the persistence context once written, so memory use does not depend on the
+ * number of orders exported. On MySQL the cursor is only streamed from the server with {@code useCursorFetch=true}.
+ */
+@Slf4j
+@Component
+public class BeerOrderExporter {
+
+	public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+	private final EntityManager entityManager;
+	private final BeerOrderMapper beerOrderMapper;
+	private final ObjectWriter objectWriter;
+	private final int fetchSize;
+
+	public BeerOrderExporter(EntityManager entityManager,
+							 BeerOrderMapper beerOrderMapper,
+							 ObjectMapper objectMapper,
+							 @Value("${sfg.brewery.export.fetch-size:500}") int fetchSize) {
+		this.entityManager = entityManager;
+		this.beerOrderMapper = beerOrderMapper;
+		this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Exports the orders of {@code customer}, optionally only those in {@code status} and created in [from, to).
+	 * Returns the number of orders written.
+	 */
+	@Transactional(readOnly = true)
+	public long export(Customer customer, BeerOrderStatusEnum status, Timestamp from, Timestamp to,
+					   OutputStream outputStream) throws IOException {
+		Session session = entityManager.unwrap(Session.class);
+		Query<BeerOrder> query = session.createQuery(buildQuery(status, from, to), BeerOrder.class)
+				.setParameter("customer", customer)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true);
+
+		if (status != null) {
+			query.setParameter("status", status);
+		}
+		if (from != null) {
+			query.setParameter("from", from);
+		}
+		if (to != null) {
+			query.setParameter("to", to);
+		}
+
+		long count = 0;
+		try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+			 JsonGenerator generator = objectWriter.getFactory().createGenerator(outputStream)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			// each order ends with its own newline instead of the default space between root values
+			generator.setRootValueSeparator(null);
+
+			while (results.next()) {
+				BeerOrder beerOrder = (BeerOrder) results.get(0);
+
+				objectWriter.writeValue(generator, beerOrderMapper.beerOrderToDto(beerOrder));
+				generator.writeRaw('\n');
+				session.evict(beerOrder);
+				count++;
+			}
+		}
+		log.debug("Exported [{}] orders of customer [{}]", count, customer.getId());
+		return count;
+	}
+
+	private static String buildQuery(BeerOrderStatusEnum status, Timestamp from, Timestamp to) {
+		// the lines are fetched in the same statement; rows of one order are adjacent because of the ordering
+		StringBuilder query = new StringBuilder("select o from BeerOrder o left join fetch o.beerOrderLines"
+				+ " where o.customer = :customer");
+
+		if (status != null) {
+			query.append(" and o.orderStatus = :status");
+		}
+		if (from != null) {
+			query.append(" and o.createdDate >= :from");
+		}
+		if (to != null) {
+			query.append(" and o.createdDate < :to");
+		}
+		return query.append(" order by o.createdDate, o.id").toString();
+	}
+}
@@ -0,0 +1,172 @@
+package guru.sfg.beer.order.service.services.inbox;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.sfg.beer.order.service.domain.InboxMessage;
+import guru.sfg.beer.order.service.repositories.InboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drops redelivered result messages before they reach
+ * {@link guru.sfg.beer.order.service.services.BeerOrderManager}.
+ * <p>
+ * Messages are identified by their JMS message id, which the broker keeps when it redelivers a message, together with
+ * the order id. Distinct results for the same order, such as a pending inventory result followed by the allocation of
+ * the same order version, are therefore all processed. A result a producer sends again gets a new message id and is
+ * left to the status checks of the state machine.
+ * <p>
+ * The key of every processed message is stored as an {@link InboxMessage} in the processing transaction, so a message
+ * counts as processed exactly when its effects are committed. Recently seen keys are also kept in a bounded in-memory
+ * cache, which answers most duplicate checks without a query. Keys older than the retention are purged.
+ */
+@Slf4j
+@Component
+public class MessageInbox {
+
+	private final InboxMessageRepository inboxMessageRepository;
+	private final EntityManager entityManager;
+	private final TransactionTemplate transactionTemplate;
+	private final Duration retention;
+	private final Cache<String, Boolean> processedKeys;
+	private final Counter duplicates;
+
+	public MessageInbox(InboxMessageRepository inboxMessageRepository,
+						EntityManager entityManager,
+						PlatformTransactionManager transactionManager,
+						MeterRegistry meterRegistry,
+						@Value("${sfg.brewery.inbox.cache-size:10000}") long cacheSize,
+						@Value("${sfg.brewery.inbox.retention:7d}") Duration retention) {
+		this.inboxMessageRepository = inboxMessageRepository;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.retention = retention;
+		this.processedKeys = Caffeine.newBuilder()
+				.maximumSize(cacheSize)
+				.expireAfterWrite(retention)
+				.recordStats()
+				.build();
+		this.duplicates = meterRegistry.counter("beer.order.inbox.duplicates");
+
+		CaffeineCacheMetrics.monitor(meterRegistry, processedKeys, "inbox");
+	}
+
+	public static String key(String messageId, UUID beerOrderId) {
+		return messageId + ":" + beerOrderId;
+	}
+
+	/**
+	 * Runs the work and records the message in one transaction, unless the message has already been processed.
+	 */
+	public void process(String messageKey, UUID beerOrderId, Runnable work) {
+		if (isCached(messageKey)) {
+			return;
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			if (inboxMessageRepository.existsById(messageKey)) {
+				duplicate(messageKey);
+				processedKeys.put(messageKey, Boolean.TRUE);
+				return;
+			}
+			record(messageKey, beerOrderId);
+			work.run();
+		});
+	}
+
+	/**
+	 * Batch variant of {@link #process}: the messages that have not been processed yet, the first of each key, are
+	 * passed to the work in one transaction, which also records them. Stored keys are checked with a single query.
+	 */
+	public <T> void processAll(List<T> messages, Function<T, String> messageKey, Function<T, UUID> beerOrderId,
+							   Consumer<List<T>> work) {
+		Map<String, T> uncached = new LinkedHashMap<>();
+		for (T message : messages) {
+			String key = messageKey.apply(message);
+			if (!isCached(key) && uncached.putIfAbsent(key, message) != null) {
+				duplicate(key);
+			}
+		}
+
+		if (uncached.isEmpty()) {
+			return;
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			Set<String> storedKeys = inboxMessageRepository.findAllById(uncached.keySet()).stream()
+					.map(InboxMessage::getMessageKey)
+					.collect(Collectors.toSet());
+			List<T> accepted = new ArrayList<>(uncached.size());
+
+			uncached.forEach((key, message) -> {
+				if (storedKeys.contains(key)) {
+					duplicate(key);
+					processedKeys.put(key, Boolean.TRUE);
+				} else {
+					record(key, beerOrderId.apply(message));
+					accepted.add(message);
+				}
+			});
+
+			if (!accepted.isEmpty()) {
+				work.accept(accepted);
+			}
+		});
+	}
+
+	@Scheduled(fixedDelayString = "${sfg.brewery.inbox.cleanup-interval:3600000}")
+	public void purge() {
+		Timestamp cutoff = new Timestamp(System.currentTimeMillis() - retention.toMillis());
+		Integer purged = transactionTemplate.execute(status -> inboxMessageRepository.deleteReceivedBefore(cutoff));
+		log.debug("Purged [{}] inbox messages received before [{}]", purged, cutoff);
+	}
+
+	private boolean isCached(String messageKey) {
+		if (processedKeys.getIfPresent(messageKey) != null) {
+			duplicate(messageKey);
+			return true;
+		}
+		return false;
+	}
+
+	private void record(String messageKey, UUID beerOrderId) {
+		entityManager.persist(InboxMessage.builder()
+				.messageKey(messageKey)
+				.beerOrderId(beerOrderId)
+				.build());
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				processedKeys.put(messageKey, Boolean.TRUE);
+			}
+		});
+	}
+
+	private void duplicate(String messageKey) {
+		log.debug("Dropping already processed message [{}]", messageKey);
+		duplicates.increment();
+	}
+}
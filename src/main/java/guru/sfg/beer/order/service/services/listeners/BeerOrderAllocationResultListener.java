@@ -2,30 +2,46 @@ package guru.sfg.beer.order.service.services.listeners;
 
 import guru.sfg.beer.order.service.config.JmsConfig;
 import guru.sfg.beer.order.service.services.BeerOrderManager;
+import guru.sfg.beer.order.service.services.OrderAffinityDispatcher;
+import guru.sfg.beer.order.service.services.inbox.MessageInbox;
 import guru.sfg.brewery.model.events.AllocateOrderResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 @Slf4j
 @RequiredArgsConstructor
 @Component
+@ConditionalOnProperty(name = BeerOrderResultBatchListener.BATCH_ENABLED_PROPERTY, havingValue = "false", matchIfMissing = true)
 public class BeerOrderAllocationResultListener {
 	private final BeerOrderManager beerOrderManager;
+	private final OrderAffinityDispatcher orderAffinityDispatcher;
+	private final MessageInbox messageInbox;
+
+	@JmsListener(destination = JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE,
+			concurrency = "${sfg.brewery.jms.concurrency.allocate-order-response:${sfg.brewery.jms.concurrency.default:1-4}}")
+	public void listen(AllocateOrderResult result, @Header(JmsHeaders.MESSAGE_ID) String messageId) {
+		UUID beerOrderId = result.getBeerOrderDto().getId();
+		String messageKey = MessageInbox.key(messageId, beerOrderId);
 
-	@JmsListener(destination = JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE)
-	public void listen(AllocateOrderResult result) {
-		if (!result.getAllocationError() && !result.getPendingInventory()) {
-			// allocated normally
-			beerOrderManager.beerOrderAllocationPassed(result.getBeerOrderDto());
-		} else if (!result.getAllocationError() && result.getPendingInventory()) {
-			// pending inventory
-			beerOrderManager.beerOrderAllocationPendingInventory(result.getBeerOrderDto());
-		} else if (result.getAllocationError()) {
-			// allocation error
-			beerOrderManager.beerOrderAllocationFailed(result.getBeerOrderDto());
-		}
+		orderAffinityDispatcher.execute(beerOrderId, () -> messageInbox.process(messageKey, beerOrderId, () -> {
+			if (!result.getAllocationError() && !result.getPendingInventory()) {
+				// allocated normally
+				beerOrderManager.beerOrderAllocationPassed(result.getBeerOrderDto());
+			} else if (!result.getAllocationError() && result.getPendingInventory()) {
+				// pending inventory
+				beerOrderManager.beerOrderAllocationPendingInventory(result.getBeerOrderDto());
+			} else if (result.getAllocationError()) {
+				// allocation error
+				beerOrderManager.beerOrderAllocationFailed(result.getBeerOrderDto());
+			}
+		}));
 	}
 
 }
@@ -0,0 +1,260 @@
+package guru.sfg.beer.order.service.services.listeners;
+
+import guru.sfg.beer.order.service.config.JmsConfig;
+import guru.sfg.beer.order.service.services.BeerOrderManager;
+import guru.sfg.beer.order.service.services.OrderAffinityDispatcher;
+import guru.sfg.beer.order.service.services.inbox.MessageInbox;
+import guru.sfg.brewery.model.events.AllocateOrderResult;
+import guru.sfg.brewery.model.events.ValidateOrderResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Batch-consuming replacement for {@link BeerOrderValidationResultListener} and
+ * {@link BeerOrderAllocationResultListener}, enabled with {@value #BATCH_ENABLED_PROPERTY}.
+ * <p>
+ * Each poll drains up to {@code max-size} messages, or whatever arrives within {@code window}, from a result queue
+ * and hands those not processed before, according to {@link MessageInbox}, to {@link BeerOrderManager} as one batch.
+ * Every queue is polled by its own thread with its own transacted session, held for the lifetime of the listener like
+ * a listener container would, which is committed after the batch has been processed so a failed batch is redelivered.
+ * A batch is processed while the {@link OrderAffinityDispatcher} lanes of its orders are held.
+ * <p>
+ * A redelivered message ends the batch being received and is processed in a batch of its own after it, so the
+ * messages of a failed batch are retried one by one and a message that keeps failing only holds back itself until the
+ * broker moves it to the dead letter queue. Both are committed to the broker together; when the redelivered message
+ * fails again, the messages before it come back as well and are dropped by the inbox, as their processing has been
+ * committed. Such a batch of one gets nothing from the preload of its order, which is accepted as redeliveries only
+ * follow a failed batch; the messages after it are batched again.
+ * <p>
+ * The polling threads are created on {@link #start()} and ended on {@link #stop()}, so the listener can be restarted
+ * with its application context.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = BeerOrderResultBatchListener.BATCH_ENABLED_PROPERTY, havingValue = "true")
+public class BeerOrderResultBatchListener implements SmartLifecycle {
+
+	public static final String BATCH_ENABLED_PROPERTY = "sfg.brewery.jms.batch.enabled";
+
+	private final ConnectionFactory connectionFactory;
+	private final MessageConverter messageConverter;
+	private final BeerOrderManager beerOrderManager;
+	private final OrderAffinityDispatcher orderAffinityDispatcher;
+	private final MessageInbox messageInbox;
+	private final int maxBatchSize;
+	private final long windowMillis;
+	private final long recoveryIntervalMillis;
+
+	private final QueueConsumer validationResults = new QueueConsumer(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE);
+	private final QueueConsumer allocationResults = new QueueConsumer(JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE);
+
+	private volatile ExecutorService executor;
+	private volatile boolean running;
+
+	public BeerOrderResultBatchListener(ConnectionFactory connectionFactory,
+										MessageConverter messageConverter,
+										BeerOrderManager beerOrderManager,
+										OrderAffinityDispatcher orderAffinityDispatcher,
+										MessageInbox messageInbox,
+										@Value("${sfg.brewery.jms.batch.max-size:50}") int maxBatchSize,
+										@Value("${sfg.brewery.jms.batch.window:100}") long windowMillis,
+										@Value("${sfg.brewery.jms.batch.recovery-interval:5000}") long recoveryIntervalMillis) {
+		this.connectionFactory = connectionFactory;
+		this.messageConverter = messageConverter;
+		this.beerOrderManager = beerOrderManager;
+		this.orderAffinityDispatcher = orderAffinityDispatcher;
+		this.messageInbox = messageInbox;
+		this.maxBatchSize = maxBatchSize;
+		this.windowMillis = windowMillis;
+		this.recoveryIntervalMillis = recoveryIntervalMillis;
+	}
+
+	@Override
+	public void start() {
+		executor = Executors.newFixedThreadPool(2, runnable -> {
+			Thread thread = new Thread(runnable, "result-batch-listener");
+			thread.setDaemon(true);
+			return thread;
+		});
+		running = true;
+		executor.execute(() -> validationResults.poll(ValidateOrderResult.class, ValidateOrderResult::getOrderId,
+				beerOrderManager::processValidationResults));
+		executor.execute(() -> allocationResults.poll(AllocateOrderResult.class,
+				result -> result.getBeerOrderDto().getId(), beerOrderManager::processAllocationResults));
+	}
+
+	/**
+	 * Lets the batches in progress finish; the consumers are closed by their polling threads.
+	 */
+	@Override
+	public void stop() {
+		ExecutorService executor = this.executor;
+		running = false;
+		this.executor = null;
+
+		if (executor == null) {
+			return;
+		}
+		executor.shutdown();
+
+		try {
+			if (!executor.awaitTermination(windowMillis + 30_000, TimeUnit.MILLISECONDS)) {
+				log.warn("Result batch listener did not stop in time");
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			executor.shutdownNow();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private class QueueConsumer {
+
+		private final String queue;
+		private Connection connection;
+		private Session session;
+		private MessageConsumer consumer;
+
+		private QueueConsumer(String queue) {
+			this.queue = queue;
+		}
+
+		<T> void poll(Class<T> type, Function<T, UUID> beerOrderId, Consumer<List<T>> processor) {
+			Thread.currentThread().setName("result-batch-" + queue);
+
+			try {
+				while (running) {
+					try {
+						drain(type, beerOrderId, processor);
+					} catch (JMSException e) {
+						log.error("Failed to consume from [{}], reconnecting in {} ms", queue, recoveryIntervalMillis, e);
+						close();
+						Thread.sleep(recoveryIntervalMillis);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				close();
+			}
+		}
+
+		private <T> void drain(Class<T> type, Function<T, UUID> beerOrderId, Consumer<List<T>> processor)
+				throws JMSException {
+			open();
+
+			try {
+				List<Received<T>> batch = new ArrayList<>();
+				Received<T> redelivered = receiveBatch(type, batch);
+
+				if (!batch.isEmpty()) {
+					process(batch, beerOrderId, processor);
+				}
+				if (redelivered != null) {
+					process(List.of(redelivered), beerOrderId, processor);
+				}
+				if (!batch.isEmpty() || redelivered != null) {
+					session.commit();
+				}
+			} catch (RuntimeException e) {
+				log.error("Failed to process batch from [{}], rolling back", queue, e);
+				session.rollback();
+			}
+		}
+
+		private <T> void process(List<Received<T>> batch, Function<T, UUID> beerOrderId, Consumer<List<T>> processor) {
+			log.debug("Processing batch of [{}] messages from [{}]", batch.size(), queue);
+			Function<Received<T>, UUID> receivedOrderId = received -> beerOrderId.apply(received.payload);
+
+			orderAffinityDispatcher.executeAll(batch.stream().map(receivedOrderId).collect(Collectors.toSet()),
+					() -> messageInbox.processAll(batch,
+							received -> MessageInbox.key(received.messageId, receivedOrderId.apply(received)),
+							receivedOrderId,
+							accepted -> processor.accept(accepted.stream()
+									.map(received -> received.payload)
+									.collect(Collectors.toList()))));
+		}
+
+		private void close() {
+			JmsUtils.closeMessageConsumer(consumer);
+			JmsUtils.closeSession(session);
+			JmsUtils.closeConnection(connection);
+			consumer = null;
+			session = null;
+			connection = null;
+		}
+
+		private void open() throws JMSException {
+			if (consumer == null) {
+				connection = connectionFactory.createConnection();
+				connection.start();
+				session = connection.createSession(true, Session.SESSION_TRANSACTED);
+				consumer = session.createConsumer(session.createQueue(queue));
+			}
+		}
+
+		/**
+		 * Fills the batch until it is full or the window has passed; a redelivered message ends it and is returned
+		 * instead of being added.
+		 */
+		private <T> Received<T> receiveBatch(Class<T> type, List<Received<T>> batch) throws JMSException {
+			long deadline = System.currentTimeMillis() + windowMillis;
+
+			while (batch.size() < maxBatchSize) {
+				long remaining = deadline - System.currentTimeMillis();
+				Message message = remaining > 0 ? consumer.receive(remaining) : consumer.receiveNoWait();
+
+				if (message == null) {
+					break;
+				}
+				Received<T> received =
+						new Received<>(message.getJMSMessageID(), type.cast(messageConverter.fromMessage(message)));
+
+				if (message.getJMSRedelivered()) {
+					return received;
+				}
+				batch.add(received);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * A converted message with its JMS message id, which keys it in the {@link MessageInbox}.
+	 */
+	private static final class Received<T> {
+		private final String messageId;
+		private final T payload;
+
+		private Received(String messageId, T payload) {
+			this.messageId = messageId;
+			this.payload = payload;
+		}
+	}
+}
@@ -1,25 +1,41 @@
 package guru.sfg.beer.order.service.services.listeners;
 
 import guru.sfg.beer.order.service.services.BeerOrderManager;
+import guru.sfg.beer.order.service.services.OrderAffinityDispatcher;
+import guru.sfg.beer.order.service.services.inbox.MessageInbox;
 import guru.sfg.brewery.model.events.ValidateOrderResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 import static guru.sfg.beer.order.service.config.JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE;
 
 @Slf4j
 @RequiredArgsConstructor
 @Component
+@ConditionalOnProperty(name = BeerOrderResultBatchListener.BATCH_ENABLED_PROPERTY, havingValue = "false", matchIfMissing = true)
 public class BeerOrderValidationResultListener {
 
     private final BeerOrderManager beerOrderManager;
+    private final OrderAffinityDispatcher orderAffinityDispatcher;
+    private final MessageInbox messageInbox;
 
-    @JmsListener(destination = VALIDATE_ORDER_RESPONSE_QUEUE)
-    public void listenOrderValidationResult(ValidateOrderResult validateOrderResult) {
+    @JmsListener(destination = VALIDATE_ORDER_RESPONSE_QUEUE,
+            concurrency = "${sfg.brewery.jms.concurrency.validate-order-response:${sfg.brewery.jms.concurrency.default:1-4}}")
+    public void listenOrderValidationResult(ValidateOrderResult validateOrderResult,
+                                            @Header(JmsHeaders.MESSAGE_ID) String messageId) {
         log.debug("Validate order result listener: result [{}] order [{}]",
                 validateOrderResult.getIsValid(), validateOrderResult.getOrderId());
-        beerOrderManager.processValidationResult(validateOrderResult.getOrderId(), validateOrderResult.getIsValid());
+        UUID beerOrderId = validateOrderResult.getOrderId();
+
+        orderAffinityDispatcher.execute(beerOrderId, () ->
+                messageInbox.process(MessageInbox.key(messageId, beerOrderId), beerOrderId, () ->
+                        beerOrderManager.processValidationResult(beerOrderId, validateOrderResult.getIsValid())));
     }
 }
@@ -0,0 +1,49 @@
+package guru.sfg.beer.order.service.services.outbox;
+
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter;
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter.WireFormat;
+import guru.sfg.beer.order.service.domain.OutboxMessage;
+import guru.sfg.beer.order.service.repositories.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Replacement for {@code JmsTemplate.convertAndSend} inside order transitions. The message is stored as an
+ * {@link OutboxMessage} in the current transaction and published by {@link OutboxRelay} once that transaction has
+ * committed, so a rolled back transition sends nothing and no reply can arrive before the new status is visible. The
+ * payload is encoded here, in the wire format of the destination, and relayed as stored.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class OutboxPublisher {
+
+	private final OutboxMessageRepository outboxMessageRepository;
+	private final WireFormatMessageConverter messageConverter;
+	private final OutboxRelay outboxRelay;
+
+	public void publish(String destination, Object payload) {
+		WireFormat wireFormat = messageConverter.wireFormat(destination);
+		OutboxMessage outboxMessage = outboxMessageRepository.save(OutboxMessage.builder()
+				.destination(destination)
+				.payloadType(payload.getClass().getName())
+				.contentType(wireFormat.getContentType())
+				.body(messageConverter.encode(payload, wireFormat))
+				.build());
+		log.debug("Stored outbox message [{}] for [{}]", outboxMessage.getId(), destination);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					outboxRelay.trigger();
+				}
+			});
+		} else {
+			outboxRelay.trigger();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package guru.sfg.beer.order.service.services.outbox;
+
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter;
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter.WireFormat;
+import guru.sfg.beer.order.service.domain.OutboxMessage;
+import guru.sfg.beer.order.service.repositories.OutboxMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes {@link OutboxMessage}s in creation order, up to {@code batch-size} per broker transaction, and deletes
+ * them once the broker has accepted the batch. Runs are triggered after every commit that stored a message and
+ * coalesced while one is pending; a scheduled sweep picks up anything a trigger missed.
+ * <p>
+ * Delivery is at least once: a batch whose delete fails after the broker commit is published again.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+	private final OutboxMessageRepository outboxMessageRepository;
+	private final ConnectionFactory connectionFactory;
+	private final WireFormatMessageConverter messageConverter;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "outbox-relay");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final AtomicBoolean triggered = new AtomicBoolean();
+
+	public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+					   ConnectionFactory connectionFactory,
+					   WireFormatMessageConverter messageConverter,
+					   PlatformTransactionManager transactionManager,
+					   @Value("${sfg.brewery.outbox.batch-size:100}") int batchSize) {
+		this.outboxMessageRepository = outboxMessageRepository;
+		this.connectionFactory = connectionFactory;
+		this.messageConverter = messageConverter;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
+	}
+
+	public void trigger() {
+		if (triggered.compareAndSet(false, true)) {
+			executor.execute(() -> {
+				triggered.set(false);
+				relay();
+			});
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${sfg.brewery.outbox.relay-interval:1000}")
+	public void sweep() {
+		relay();
+	}
+
+	@PreDestroy
+	public void close() {
+		executor.shutdown();
+	}
+
+	synchronized void relay() {
+		try {
+			int published;
+			do {
+				published = transactionTemplate.execute(status -> publishBatch());
+			} while (published == batchSize);
+		} catch (RuntimeException e) {
+			log.error("Failed to relay outbox messages", e);
+		}
+	}
+
+	private int publishBatch() {
+		List<OutboxMessage> outboxMessages =
+				outboxMessageRepository.findAllByOrderByCreatedDateAscIdAsc(PageRequest.of(0, batchSize));
+
+		if (outboxMessages.isEmpty()) {
+			return 0;
+		}
+
+		send(outboxMessages);
+		outboxMessageRepository.deleteInBatch(outboxMessages);
+		log.debug("Relayed [{}] outbox messages", outboxMessages.size());
+		return outboxMessages.size();
+	}
+
+	private void send(List<OutboxMessage> outboxMessages) {
+		Connection connection = null;
+		Session session = null;
+		try {
+			connection = connectionFactory.createConnection();
+			session = connection.createSession(true, Session.SESSION_TRANSACTED);
+			Map<String, MessageProducer> producers = new HashMap<>();
+
+			for (OutboxMessage outboxMessage : outboxMessages) {
+				Session producerSession = session;
+				MessageProducer producer = producers.computeIfAbsent(outboxMessage.getDestination(),
+						destination -> createProducer(producerSession, destination));
+				producer.send(messageConverter.toMessage(outboxMessage.getBody(), outboxMessage.getPayloadType(),
+						WireFormat.forContentType(outboxMessage.getContentType()), session));
+			}
+			session.commit();
+		} catch (JMSException e) {
+			throw JmsUtils.convertJmsAccessException(e);
+		} finally {
+			JmsUtils.closeSession(session);
+			JmsUtils.closeConnection(connection);
+		}
+	}
+
+	private MessageProducer createProducer(Session session, String destination) {
+		try {
+			return session.createProducer(session.createQueue(destination));
+		} catch (JMSException e) {
+			throw JmsUtils.convertJmsAccessException(e);
+		}
+	}
+}
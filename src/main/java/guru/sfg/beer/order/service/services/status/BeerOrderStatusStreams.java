@@ -0,0 +1,254 @@
+package guru.sfg.beer.order.service.services.status;
+
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.TimeOrderedUuidGenerator;
+import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
+import guru.sfg.beer.order.service.sm.BeerOrderStatusListener;
+import guru.sfg.beer.order.service.sm.BeerOrderStatusNotifier;
+import guru.sfg.brewery.model.OrderStatusUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events streams of the status changes of a customer's orders, fed by {@link BeerOrderStatusNotifier}
+ * and published once the transition has committed.
+ * <p>
+ * Every connection buffers up to {@code buffer-size} events and is written by a sender thread, so a slow client
+ * never blocks a transition. A client that falls further behind is disconnected and is expected to reconnect and
+ * re-read its orders. Connections are limited per customer and in total, and idle connections get a heartbeat
+ * comment so that dead clients are detected.
+ */
+@Slf4j
+@Component
+public class BeerOrderStatusStreams implements BeerOrderStatusListener {
+
+	public static final String STATUS_EVENT_NAME = "order-status";
+
+	private final BeerOrderRepository beerOrderRepository;
+	private final int maxConnections;
+	private final int maxConnectionsPerCustomer;
+	private final int bufferSize;
+	private final Duration timeout;
+
+	private final ConcurrentMap<UUID, Set<Connection>> connections = new ConcurrentHashMap<>();
+	private final AtomicInteger connectionCount = new AtomicInteger();
+	private final Counter overflows;
+	private final ExecutorService executor;
+
+	public BeerOrderStatusStreams(BeerOrderRepository beerOrderRepository,
+								  BeerOrderStatusNotifier beerOrderStatusNotifier,
+								  MeterRegistry meterRegistry,
+								  @Value("${sfg.brewery.status-stream.max-connections:1000}") int maxConnections,
+								  @Value("${sfg.brewery.status-stream.max-connections-per-customer:5}") int maxConnectionsPerCustomer,
+								  @Value("${sfg.brewery.status-stream.buffer-size:100}") int bufferSize,
+								  @Value("${sfg.brewery.status-stream.timeout:30m}") Duration timeout,
+								  @Value("${sfg.brewery.status-stream.sender-threads:4}") int senderThreads) {
+		this.beerOrderRepository = beerOrderRepository;
+		this.maxConnections = maxConnections;
+		this.maxConnectionsPerCustomer = maxConnectionsPerCustomer;
+		this.bufferSize = bufferSize;
+		this.timeout = timeout;
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(senderThreads, runnable -> {
+			Thread thread = new Thread(runnable, "status-stream-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		this.overflows = meterRegistry.counter("beer.order.status.stream.overflows");
+		meterRegistry.gauge("beer.order.status.streams", connectionCount);
+		beerOrderStatusNotifier.addListener(this);
+	}
+
+	/**
+	 * Opens a stream for the customer, or returns empty when the connection limits are reached.
+	 */
+	public Optional<SseEmitter> subscribe(UUID customerId) {
+		if (connectionCount.incrementAndGet() > maxConnections) {
+			connectionCount.decrementAndGet();
+			log.warn("Status stream limit of [{}] connections reached", maxConnections);
+			return Optional.empty();
+		}
+
+		Connection connection = new Connection(customerId, new SseEmitter(timeout.toMillis()));
+		AtomicBoolean added = new AtomicBoolean();
+		connections.compute(customerId, (id, customerConnections) -> {
+			Set<Connection> result = customerConnections != null ? customerConnections : ConcurrentHashMap.newKeySet();
+			if (result.size() < maxConnectionsPerCustomer) {
+				added.set(result.add(connection));
+			}
+			return result.isEmpty() ? null : result;
+		});
+
+		if (!added.get()) {
+			connectionCount.decrementAndGet();
+			log.warn("Status stream limit of [{}] connections reached for customer [{}]", maxConnectionsPerCustomer,
+					customerId);
+			return Optional.empty();
+		}
+
+		connection.emitter.onCompletion(() -> remove(connection));
+		connection.emitter.onTimeout(() -> remove(connection));
+		connection.emitter.onError(e -> remove(connection));
+		// commits the response headers right away instead of with the first status change
+		connection.offer(SseEmitter.event().comment("connected"));
+		log.debug("Opened status stream for customer [{}]", customerId);
+		return Optional.of(connection.emitter);
+	}
+
+	@Override
+	public void statusChanged(UUID beerOrderId, BeerOrderStatusEnum statusEnum) {
+		if (connections.isEmpty()) {
+			return;
+		}
+
+		beerOrderRepository.findOwnerById(beerOrderId)
+				.filter(owner -> connections.containsKey(owner.getCustomerId()))
+				.ifPresent(owner -> {
+					OffsetDateTime now = OffsetDateTime.now();
+					OrderStatusUpdate update = OrderStatusUpdate.builder()
+							.id(TimeOrderedUuidGenerator.generate())
+							.version(owner.getVersion() != null ? owner.getVersion().intValue() : null)
+							.createdDate(now)
+							.lastModifiedDate(now)
+							.orderId(beerOrderId)
+							.customerRef(owner.getCustomerRef())
+							.orderStatus(statusEnum.name())
+							.build();
+
+					if (TransactionSynchronizationManager.isSynchronizationActive()) {
+						TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+							@Override
+							public void afterCommit() {
+								publish(owner.getCustomerId(), update);
+							}
+						});
+					} else {
+						publish(owner.getCustomerId(), update);
+					}
+				});
+	}
+
+	@Scheduled(fixedDelayString = "${sfg.brewery.status-stream.heartbeat-interval:15000}")
+	public void heartbeat() {
+		connections.values().forEach(customerConnections ->
+				customerConnections.forEach(connection -> connection.offer(SseEmitter.event().comment("heartbeat"))));
+	}
+
+	@PreDestroy
+	public void close() {
+		executor.shutdownNow();
+		connections.values().forEach(customerConnections -> customerConnections.forEach(connection -> {
+			try {
+				connection.emitter.complete();
+			} catch (Exception e) {
+				// the web server may already have recycled the request
+				log.debug("Could not complete status stream of customer [{}]", connection.customerId, e);
+			}
+		}));
+	}
+
+	private void publish(UUID customerId, OrderStatusUpdate update) {
+		Set<Connection> customerConnections = connections.get(customerId);
+
+		if (customerConnections != null) {
+			customerConnections.forEach(connection -> connection.offer(SseEmitter.event()
+					.id(update.getId().toString())
+					.name(STATUS_EVENT_NAME)
+					.data(update, MediaType.APPLICATION_JSON)));
+		}
+	}
+
+	private void remove(Connection connection) {
+		AtomicBoolean removed = new AtomicBoolean();
+		connections.computeIfPresent(connection.customerId, (id, customerConnections) -> {
+			removed.set(customerConnections.remove(connection));
+			return customerConnections.isEmpty() ? null : customerConnections;
+		});
+
+		if (removed.get()) {
+			connectionCount.decrementAndGet();
+			log.debug("Closed status stream for customer [{}]", connection.customerId);
+		}
+	}
+
+	private class Connection {
+		private final UUID customerId;
+		private final SseEmitter emitter;
+		private final BlockingQueue<SseEmitter.SseEventBuilder> events = new ArrayBlockingQueue<>(bufferSize);
+		private final AtomicBoolean sending = new AtomicBoolean();
+
+		private Connection(UUID customerId, SseEmitter emitter) {
+			this.customerId = customerId;
+			this.emitter = emitter;
+		}
+
+		private void offer(SseEmitter.SseEventBuilder event) {
+			if (!events.offer(event)) {
+				log.warn("Status stream of customer [{}] is [{}] events behind, disconnecting", customerId, bufferSize);
+				overflows.increment();
+				remove(this);
+				emitter.complete();
+				return;
+			}
+			scheduleSend();
+		}
+
+		private void scheduleSend() {
+			if (sending.compareAndSet(false, true)) {
+				try {
+					executor.execute(this::send);
+				} catch (RejectedExecutionException e) {
+					// shutting down
+					sending.set(false);
+				}
+			}
+		}
+
+		private void send() {
+			try {
+				SseEmitter.SseEventBuilder event;
+				while ((event = events.poll()) != null) {
+					emitter.send(event);
+				}
+			} catch (Exception e) {
+				log.debug("Status stream of customer [{}] failed", customerId, e);
+				remove(this);
+				emitter.completeWithError(e);
+				events.clear();
+			} finally {
+				sending.set(false);
+			}
+
+			// an event offered after the last poll but before the flag was cleared
+			if (!events.isEmpty()) {
+				scheduleSend();
+			}
+		}
+	}
+}
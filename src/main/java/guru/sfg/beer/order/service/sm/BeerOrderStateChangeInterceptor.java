@@ -6,6 +6,7 @@ import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
 import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.messaging.Message;
 import org.springframework.statemachine.StateMachine;
 import org.springframework.statemachine.state.State;
@@ -14,11 +15,25 @@ import org.springframework.statemachine.transition.Transition;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
 import java.util.Optional;
 import java.util.UUID;
 
 import static guru.sfg.beer.order.service.services.BeerOrderManagerImpl.ORDER_ID_HEADER;
 
+/**
+ * Saves the status of a transition with a compare-and-set update against its source status, without loading the
+ * order. A copy of the order already loaded in the persistence context is detached afterwards, its pending changes
+ * having been flushed by the update, so that it neither serves the old status nor fails its version check on a later
+ * flush. Refreshing it instead would select the order and its lines again on every transition, while most transitions
+ * end the work on the order. The detached copy gets the saved status for callers that go on with it, but keeps the
+ * version it was loaded with; an order to be changed further is loaded again.
+ * <p>
+ * When the update loses to a concurrent transition the interceptor throws, which makes Spring Statemachine skip the
+ * state change; {@link SpringStateMachineTransitionEngine} detects that and fails the transition. Nothing is saved
+ * after a failed transition action, which the engine turns into a {@link BeerOrderTransitionException}.
+ */
 @Slf4j
 @RequiredArgsConstructor
 @Component
@@ -26,6 +41,8 @@ public class BeerOrderStateChangeInterceptor
 		extends StateMachineInterceptorAdapter<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
 	private final BeerOrderRepository beerOrderRepository;
+	private final BeerOrderStatusNotifier beerOrderStatusNotifier;
+	private final EntityManager entityManager;
 
 	@Transactional
 	@Override
@@ -34,14 +51,51 @@ public class BeerOrderStateChangeInterceptor
 			BeerOrderEventEnum> transition, StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachine) {
 
 		log.debug("Pre-State Change");
+
+		// a failed action does not stop Spring Statemachine from changing the state, the engine fails the transition
+		if (stateMachine.getExtendedState().get(BeerOrderStateMachineConfig.TRANSITION_ERROR, Exception.class) != null) {
+			log.debug("Transition action failed, not saving status [{}]", state.getId());
+			return;
+		}
+
 		Optional.ofNullable(message)
 				.flatMap(msg -> Optional.ofNullable((String) msg.getHeaders().getOrDefault(ORDER_ID_HEADER, " ")))
 				.ifPresent(orderId -> {
-					log.debug("Saving state for order [{}], Status [{}]", orderId, state.getId());
+					BeerOrderStatusEnum fromStatus = transition.getSource().getId();
 
-					BeerOrder beerOrder = beerOrderRepository.getOne(UUID.fromString(orderId));
-					beerOrder.setOrderStatus(state.getId());
-					beerOrderRepository.saveAndFlush(beerOrder);
+					if (!saveStatus(orderId, fromStatus, state.getId())) {
+						throw new BeerOrderStatusConflictException(UUID.fromString(orderId), fromStatus, state.getId());
+					}
 				});
 	}
+
+	/**
+	 * Returns false if the order was no longer in {@code fromStatus}.
+	 */
+	@Transactional
+	public boolean saveStatus(String orderId, BeerOrderStatusEnum fromStatus, BeerOrderStatusEnum statusEnum) {
+		log.debug("Saving state for order [{}], Status [{}] -> [{}]", orderId, fromStatus, statusEnum);
+
+		UUID beerOrderId = UUID.fromString(orderId);
+		Timestamp lastModifiedDate = new Timestamp(System.currentTimeMillis());
+
+		if (beerOrderRepository.updateOrderStatus(beerOrderId, fromStatus, statusEnum, lastModifiedDate) == 0) {
+			log.warn("Order [{}] is no longer in status [{}], not changing it to [{}]", orderId, fromStatus, statusEnum);
+			return false;
+		}
+		detachManagedOrder(beerOrderId, statusEnum, lastModifiedDate);
+		beerOrderStatusNotifier.statusChanged(beerOrderId, statusEnum);
+		return true;
+	}
+
+	private void detachManagedOrder(UUID beerOrderId, BeerOrderStatusEnum statusEnum, Timestamp lastModifiedDate) {
+		// served from the persistence context without a query; an uninitialized proxy loads the new state anyway
+		BeerOrder beerOrder = entityManager.getReference(BeerOrder.class, beerOrderId);
+
+		if (Hibernate.isInitialized(beerOrder)) {
+			entityManager.detach(beerOrder);
+			beerOrder.setOrderStatus(statusEnum);
+			beerOrder.setLastModifiedDate(lastModifiedDate);
+		}
+	}
 }
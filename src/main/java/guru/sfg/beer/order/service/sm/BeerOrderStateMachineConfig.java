@@ -40,6 +40,13 @@ import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.VALIDATION_
 public class BeerOrderStateMachineConfig
 		extends StateMachineConfigurerAdapter<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
+	/**
+	 * Extended state variable holding the exception of a failed transition action. Spring Statemachine swallows such
+	 * failures and still changes the state, so the interceptor does not save the status when it is set and the
+	 * transition engines read it to fail the transition.
+	 */
+	public static final String TRANSITION_ERROR = "transitionError";
+
 	private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateOrderAction;
 	private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocateOrderAction;
 	private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateFailureAction;
@@ -62,17 +69,21 @@ public class BeerOrderStateMachineConfig
 	@Override
 	public void configure(StateMachineTransitionConfigurer<BeerOrderStatusEnum, BeerOrderEventEnum> transitions) throws Exception {
 		transitions
-				.withExternal().source(NEW).target(VALIDATION_PENDING).event(VALIDATE_ORDER).action(validateOrderAction).and()
+				.withExternal().source(NEW).target(VALIDATION_PENDING).event(VALIDATE_ORDER).action(validateOrderAction, transitionErrorAction()).and()
 				.withExternal().source(VALIDATION_PENDING).target(VALIDATED).event(VALIDATION_PASSED).and()
 				.withExternal().source(VALIDATION_PENDING).target(CANCELLED).event(CANCEL_ORDER).and()
-				.withExternal().source(VALIDATION_PENDING).target(VALIDATION_EXCEPTION).event(VALIDATION_FAILED).action(validateFailureAction).and()
-				.withExternal().source(VALIDATED).target(ALLOCATION_PENDING).event(ALLOCATE_ORDER).action(allocateOrderAction).and()
+				.withExternal().source(VALIDATION_PENDING).target(VALIDATION_EXCEPTION).event(VALIDATION_FAILED).action(validateFailureAction, transitionErrorAction()).and()
+				.withExternal().source(VALIDATED).target(ALLOCATION_PENDING).event(ALLOCATE_ORDER).action(allocateOrderAction, transitionErrorAction()).and()
 				.withExternal().source(VALIDATED).target(CANCELLED).event(CANCEL_ORDER).and()
 				.withExternal().source(ALLOCATION_PENDING).target(ALLOCATED).event(ALLOCATION_SUCCESS).and()
-				.withExternal().source(ALLOCATION_PENDING).target(ALLOCATION_EXCEPTION).event(ALLOCATION_FAILED).action(allocationFailureAction).and()
+				.withExternal().source(ALLOCATION_PENDING).target(ALLOCATION_EXCEPTION).event(ALLOCATION_FAILED).action(allocationFailureAction, transitionErrorAction()).and()
 				.withExternal().source(ALLOCATION_PENDING).target(CANCELLED).event(CANCEL_ORDER).and()
 				.withExternal().source(ALLOCATION_PENDING).target(PENDING_INVENTORY).event(ALLOCATION_NO_INVENTORY).and()
 				.withExternal().source(ALLOCATED).target(PICKED_UP).event(BEER_ORDER_PICKED_UP).and()
-				.withExternal().source(ALLOCATED).target(CANCELLED).event(CANCEL_ORDER).action(deallocateOrderAction);
+				.withExternal().source(ALLOCATED).target(CANCELLED).event(CANCEL_ORDER).action(deallocateOrderAction, transitionErrorAction());
+	}
+
+	private static Action<BeerOrderStatusEnum, BeerOrderEventEnum> transitionErrorAction() {
+		return context -> context.getExtendedState().getVariables().put(TRANSITION_ERROR, context.getException());
 	}
 }
@@ -0,0 +1,96 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of pre-configured state machines. A borrowed machine is rehydrated from the order status instead of
+ * being built by the factory for every event; the factory is only used when the pool is empty.
+ * <p>
+ * Released machines are stopped and their extended state is cleared before they go back to the pool, so a borrower
+ * only resets the state and starts the machine. A machine that ended in an error is discarded.
+ */
+@Slf4j
+@Component
+public class BeerOrderStateMachinePool {
+
+	private final StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+	private final BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor;
+	private final BlockingQueue<StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum>> pool;
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Timer buildTimer;
+	private final Timer rehydrateTimer;
+
+	public BeerOrderStateMachinePool(StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory,
+									 BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor,
+									 MeterRegistry meterRegistry,
+									 @Value("${sfg.brewery.state-machine-pool-size:16}") int poolSize) {
+		this.stateMachineFactory = stateMachineFactory;
+		this.beerOrderStateChangeInterceptor = beerOrderStateChangeInterceptor;
+		this.pool = new ArrayBlockingQueue<>(poolSize);
+
+		this.hits = meterRegistry.counter("beer.order.state.machine.pool", "result", "hit");
+		this.misses = meterRegistry.counter("beer.order.state.machine.pool", "result", "miss");
+		this.buildTimer = meterRegistry.timer("beer.order.state.machine.build");
+		this.rehydrateTimer = meterRegistry.timer("beer.order.state.machine.rehydrate");
+		meterRegistry.gauge("beer.order.state.machine.pool.idle", pool, BlockingQueue::size);
+	}
+
+	public StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> acquire(BeerOrderStatusEnum orderStatus) {
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = pool.poll();
+
+		if (sm == null) {
+			misses.increment();
+			sm = buildTimer.record(this::build);
+		} else {
+			hits.increment();
+		}
+
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> machine = sm;
+		rehydrateTimer.record(() -> rehydrate(machine, orderStatus));
+		return machine;
+	}
+
+	public void release(StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm) {
+		sm.stop();
+
+		if (sm.hasStateMachineError()) {
+			log.debug("Discarding state machine in error");
+			return;
+		}
+		sm.getExtendedState().getVariables().clear();
+
+		if (!pool.offer(sm)) {
+			log.debug("State machine pool is full, discarding machine");
+		}
+	}
+
+	private StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> build() {
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = stateMachineFactory.getStateMachine();
+
+		sm.getStateMachineAccessor().doWithAllRegions(sma ->
+				sma.addStateMachineInterceptor(beerOrderStateChangeInterceptor));
+
+		return sm;
+	}
+
+	private void rehydrate(StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm, BeerOrderStatusEnum orderStatus) {
+		sm.getStateMachineAccessor().doWithAllRegions(sma ->
+				sma.resetStateMachine(new DefaultStateMachineContext<>(orderStatus, null, null, null)));
+		sm.start();
+	}
+}
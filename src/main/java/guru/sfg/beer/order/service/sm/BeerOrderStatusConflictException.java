@@ -0,0 +1,18 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+
+import java.util.UUID;
+
+/**
+ * The order was no longer in the source status of a transition when its new status was saved, because a concurrent
+ * transition won. Thrown out of the transition so that its transaction, including the messages of its actions, is
+ * rolled back.
+ */
+public class BeerOrderStatusConflictException extends RuntimeException {
+
+	public BeerOrderStatusConflictException(UUID beerOrderId, BeerOrderStatusEnum fromStatus,
+											BeerOrderStatusEnum toStatus) {
+		super("Order " + beerOrderId + " is no longer in status " + fromStatus + ", cannot change it to " + toStatus);
+	}
+}
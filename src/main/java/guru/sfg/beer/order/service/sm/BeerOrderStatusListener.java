@@ -0,0 +1,14 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+
+import java.util.UUID;
+
+/**
+ * Notified by {@link BeerOrderStatusNotifier} of every saved status change, inside the transaction of the transition.
+ * Listeners that publish the change outside the service should wait for the commit.
+ */
+public interface BeerOrderStatusListener {
+
+	void statusChanged(UUID beerOrderId, BeerOrderStatusEnum statusEnum);
+}
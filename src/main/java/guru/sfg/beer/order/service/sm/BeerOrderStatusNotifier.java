@@ -0,0 +1,114 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process notification of order status transitions, fed by {@link BeerOrderStateChangeInterceptor}.
+ * <p>
+ * Waiters register for a target status before the event is sent and are completed once the status is committed.
+ * A waiter on the thread that performed the transition is completed immediately because the change is already
+ * visible to its own transaction.
+ * <p>
+ * Registered {@link BeerOrderStatusListener}s see every change; a failing listener does not fail the transition.
+ */
+@Slf4j
+@Component
+public class BeerOrderStatusNotifier {
+
+	private final ConcurrentMap<UUID, Set<StatusWaiter>> waiters = new ConcurrentHashMap<>();
+	private final List<BeerOrderStatusListener> listeners = new CopyOnWriteArrayList<>();
+
+	public void addListener(BeerOrderStatusListener listener) {
+		listeners.add(listener);
+	}
+
+	public CompletableFuture<BeerOrderStatusEnum> awaitStatus(UUID beerOrderId, BeerOrderStatusEnum statusEnum) {
+		StatusWaiter waiter = new StatusWaiter(statusEnum, Thread.currentThread());
+
+		waiters.compute(beerOrderId, (id, orderWaiters) -> {
+			Set<StatusWaiter> result = orderWaiters != null ? orderWaiters : ConcurrentHashMap.newKeySet();
+			result.add(waiter);
+			return result;
+		});
+		waiter.future.whenComplete((status, e) -> removeWaiter(beerOrderId, waiter));
+
+		return waiter.future;
+	}
+
+	public void statusChanged(UUID beerOrderId, BeerOrderStatusEnum statusEnum) {
+		listeners.forEach(listener -> {
+			try {
+				listener.statusChanged(beerOrderId, statusEnum);
+			} catch (Exception e) {
+				log.error("Status listener failed for order [{}]", beerOrderId, e);
+			}
+		});
+
+		if (!waiters.containsKey(beerOrderId)) {
+			return;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			Thread transitionThread = Thread.currentThread();
+			complete(beerOrderId, statusEnum, transitionThread);
+
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					complete(beerOrderId, statusEnum, null);
+				}
+			});
+		} else {
+			complete(beerOrderId, statusEnum, null);
+		}
+	}
+
+	int pendingWaiters(UUID beerOrderId) {
+		Set<StatusWaiter> orderWaiters = waiters.get(beerOrderId);
+		return orderWaiters != null ? orderWaiters.size() : 0;
+	}
+
+	private void complete(UUID beerOrderId, BeerOrderStatusEnum statusEnum, Thread onlyThread) {
+		Set<StatusWaiter> orderWaiters = waiters.get(beerOrderId);
+
+		if (orderWaiters != null) {
+			orderWaiters.stream()
+					.filter(waiter -> waiter.statusEnum == statusEnum)
+					.filter(waiter -> onlyThread == null || waiter.thread == onlyThread)
+					.forEach(waiter -> {
+						log.debug("Status [{}] reached for order [{}]", statusEnum, beerOrderId);
+						waiter.future.complete(statusEnum);
+					});
+		}
+	}
+
+	private void removeWaiter(UUID beerOrderId, StatusWaiter waiter) {
+		waiters.computeIfPresent(beerOrderId, (id, orderWaiters) -> {
+			orderWaiters.remove(waiter);
+			return orderWaiters.isEmpty() ? null : orderWaiters;
+		});
+	}
+
+	private static class StatusWaiter {
+		private final BeerOrderStatusEnum statusEnum;
+		private final Thread thread;
+		private final CompletableFuture<BeerOrderStatusEnum> future = new CompletableFuture<>();
+
+		private StatusWaiter(BeerOrderStatusEnum statusEnum, Thread thread) {
+			this.statusEnum = statusEnum;
+			this.thread = thread;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+
+import java.util.UUID;
+
+/**
+ * Applies an order event to an order in the given status, running the configured actions and persisting the new
+ * status. The implementation is selected with {@code sfg.brewery.state-machine-engine} ({@code spring} or
+ * {@code table}).
+ * <p>
+ * A transition runs in one transaction, so messages stored by its actions commit or roll back together with the
+ * new status. A failing action throws {@link BeerOrderTransitionException} and leaves the status unchanged.
+ */
+public interface BeerOrderTransitionEngine {
+
+	String ENGINE_PROPERTY = "sfg.brewery.state-machine-engine";
+
+	boolean sendEvent(UUID beerOrderId, BeerOrderStatusEnum orderStatus, BeerOrderEventEnum eventEnum);
+}
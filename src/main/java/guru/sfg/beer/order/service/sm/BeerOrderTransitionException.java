@@ -0,0 +1,18 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+
+import java.util.UUID;
+
+/**
+ * An action of a transition failed. The status is left unchanged and the exception is thrown out of the transition
+ * so that its transaction is rolled back.
+ */
+public class BeerOrderTransitionException extends RuntimeException {
+
+	public BeerOrderTransitionException(UUID beerOrderId, BeerOrderStatusEnum fromStatus, BeerOrderEventEnum eventEnum,
+										Throwable cause) {
+		super("Event " + eventEnum + " failed for order " + beerOrderId + " in status " + fromStatus, cause);
+	}
+}
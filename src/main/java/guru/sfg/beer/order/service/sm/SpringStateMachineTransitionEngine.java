@@ -0,0 +1,49 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static guru.sfg.beer.order.service.services.BeerOrderManagerImpl.ORDER_ID_HEADER;
+
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = BeerOrderTransitionEngine.ENGINE_PROPERTY, havingValue = "spring", matchIfMissing = true)
+public class SpringStateMachineTransitionEngine implements BeerOrderTransitionEngine {
+
+	private final BeerOrderStateMachinePool beerOrderStateMachinePool;
+
+	@Transactional
+	@Override
+	public boolean sendEvent(UUID beerOrderId, BeerOrderStatusEnum orderStatus, BeerOrderEventEnum eventEnum) {
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = beerOrderStateMachinePool.acquire(orderStatus);
+		Message<BeerOrderEventEnum> msg = MessageBuilder.withPayload(eventEnum)
+				.setHeader(ORDER_ID_HEADER, beerOrderId.toString())
+				.build();
+		try {
+			boolean accepted = sm.sendEvent(msg);
+
+			Exception actionError = sm.getExtendedState().get(BeerOrderStateMachineConfig.TRANSITION_ERROR, Exception.class);
+			if (actionError != null) {
+				throw new BeerOrderTransitionException(beerOrderId, orderStatus, eventEnum, actionError);
+			}
+
+			// none of the configured transitions is a self transition, so staying in the source status means the
+			// status save in the interceptor failed and the state change was skipped
+			if (accepted && sm.getState().getId() == orderStatus) {
+				throw new BeerOrderStatusConflictException(beerOrderId, orderStatus, null);
+			}
+			return accepted;
+		} finally {
+			beerOrderStateMachinePool.release(sm);
+		}
+	}
+}
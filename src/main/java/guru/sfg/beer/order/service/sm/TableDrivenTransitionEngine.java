@@ -0,0 +1,112 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateContext;
+import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.support.DefaultExtendedState;
+import org.springframework.statemachine.support.DefaultStateContext;
+import org.springframework.statemachine.transition.Transition;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static guru.sfg.beer.order.service.services.BeerOrderManagerImpl.ORDER_ID_HEADER;
+
+/**
+ * Transition engine backed by a (state, event) lookup table compiled from the transitions configured in
+ * {@link BeerOrderStateMachineConfig}. The configured actions are invoked directly, followed by the status save,
+ * which mirrors the order Spring Statemachine uses for external transitions. The compiled actions are the ones Spring
+ * Statemachine wraps with the configured error action, so a failing action does not throw but records its exception
+ * under {@link BeerOrderStateMachineConfig#TRANSITION_ERROR}; the engine reads it and aborts the transition with a
+ * {@link BeerOrderTransitionException} before the status is saved, as the Spring engine does. A status save that
+ * loses to a concurrent transition throws {@link BeerOrderStatusConflictException}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = BeerOrderTransitionEngine.ENGINE_PROPERTY, havingValue = "table")
+public class TableDrivenTransitionEngine implements BeerOrderTransitionEngine {
+
+	private final BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor;
+	private final TableEntry[][] table;
+
+	public TableDrivenTransitionEngine(StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory,
+									   BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor) {
+		this.beerOrderStateChangeInterceptor = beerOrderStateChangeInterceptor;
+		this.table = compile(stateMachineFactory);
+	}
+
+	@Transactional
+	@Override
+	public boolean sendEvent(UUID beerOrderId, BeerOrderStatusEnum orderStatus, BeerOrderEventEnum eventEnum) {
+		TableEntry entry = table[orderStatus.ordinal()][eventEnum.ordinal()];
+
+		if (entry == null) {
+			log.debug("Event [{}] not accepted in status [{}] for order [{}]", eventEnum, orderStatus, beerOrderId);
+			return false;
+		}
+
+		String orderId = beerOrderId.toString();
+		Message<BeerOrderEventEnum> msg = MessageBuilder.withPayload(eventEnum)
+				.setHeader(ORDER_ID_HEADER, orderId)
+				.build();
+		StateContext<BeerOrderStatusEnum, BeerOrderEventEnum> context = new DefaultStateContext<>(
+				StateContext.Stage.TRANSITION, msg, msg.getHeaders(), new DefaultExtendedState(), null, null, null, null,
+				null);
+
+		try {
+			for (Action<BeerOrderStatusEnum, BeerOrderEventEnum> action : entry.actions) {
+				action.execute(context);
+			}
+		} catch (Exception e) {
+			throw new BeerOrderTransitionException(beerOrderId, orderStatus, eventEnum, e);
+		}
+
+		Exception actionError = context.getExtendedState().get(BeerOrderStateMachineConfig.TRANSITION_ERROR, Exception.class);
+		if (actionError != null) {
+			throw new BeerOrderTransitionException(beerOrderId, orderStatus, eventEnum, actionError);
+		}
+
+		if (!beerOrderStateChangeInterceptor.saveStatus(orderId, orderStatus, entry.target)) {
+			throw new BeerOrderStatusConflictException(beerOrderId, orderStatus, entry.target);
+		}
+		return true;
+	}
+
+	private static TableEntry[][] compile(StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory) {
+		TableEntry[][] table = new TableEntry[BeerOrderStatusEnum.values().length][BeerOrderEventEnum.values().length];
+
+		for (Transition<BeerOrderStatusEnum, BeerOrderEventEnum> transition : stateMachineFactory.getStateMachine().getTransitions()) {
+			if (transition.getTrigger() == null || transition.getGuard() != null) {
+				throw new IllegalStateException("Only event triggered transitions without guards can be compiled: "
+						+ transition.getSource().getId() + " -> " + transition.getTarget().getId());
+			}
+
+			BeerOrderStatusEnum source = transition.getSource().getId();
+			BeerOrderEventEnum event = transition.getTrigger().getEvent();
+			List<Action<BeerOrderStatusEnum, BeerOrderEventEnum>> actions = transition.getActions() != null
+					? new ArrayList<>(transition.getActions()) : List.of();
+
+			table[source.ordinal()][event.ordinal()] = new TableEntry(transition.getTarget().getId(), actions);
+		}
+		return table;
+	}
+
+	private static class TableEntry {
+		private final BeerOrderStatusEnum target;
+		private final List<Action<BeerOrderStatusEnum, BeerOrderEventEnum>> actions;
+
+		private TableEntry(BeerOrderStatusEnum target, List<Action<BeerOrderStatusEnum, BeerOrderEventEnum>> actions) {
+			this.target = target;
+			this.actions = actions;
+		}
+	}
+}
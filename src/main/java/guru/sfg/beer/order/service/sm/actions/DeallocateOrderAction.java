@@ -6,11 +6,11 @@ import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
 import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
 import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
 import guru.sfg.beer.order.service.services.BeerOrderManagerImpl;
+import guru.sfg.beer.order.service.services.outbox.OutboxPublisher;
 import guru.sfg.beer.order.service.web.mappers.BeerOrderMapper;
 import guru.sfg.brewery.model.events.DeallocateOrderRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.statemachine.StateContext;
 import org.springframework.statemachine.action.Action;
 import org.springframework.stereotype.Component;
@@ -23,7 +23,7 @@ import java.util.UUID;
 @Component
 public class DeallocateOrderAction implements Action<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
-	private final JmsTemplate jmsTemplate;
+	private final OutboxPublisher outboxPublisher;
 	private final BeerOrderRepository beerOrderRepository;
 	private final BeerOrderMapper beerOrderMapper;
 
@@ -33,9 +33,9 @@ public class DeallocateOrderAction implements Action<BeerOrderStatusEnum, BeerOr
 		Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(UUID.fromString(beerOrderId));
 
 		beerOrderOptional.ifPresentOrElse(beerOrder -> {
-			jmsTemplate.convertAndSend(JmsConfig.DEALLOCATE_ORDER_QUEUE,
+			outboxPublisher.publish(JmsConfig.DEALLOCATE_ORDER_QUEUE,
 					DeallocateOrderRequest.builder()
-							.beerOrderDto(beerOrderMapper.beerOrderToDto(beerOrder))
+							.beerOrderDto(beerOrderMapper.beerOrderToEventDto(beerOrder))
 							.build());
 			log.debug("Sent Deallocation Request for order id: " + beerOrderId);
 		}, () -> log.error("Beer Order Not Found!"));
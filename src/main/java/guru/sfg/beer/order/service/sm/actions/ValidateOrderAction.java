@@ -6,11 +6,11 @@ import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
 import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
 import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
 import guru.sfg.beer.order.service.services.BeerOrderManagerImpl;
+import guru.sfg.beer.order.service.services.outbox.OutboxPublisher;
 import guru.sfg.beer.order.service.web.mappers.BeerOrderMapper;
 import guru.sfg.brewery.model.events.ValidateOrderRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.statemachine.StateContext;
 import org.springframework.statemachine.action.Action;
 import org.springframework.stereotype.Component;
@@ -25,7 +25,7 @@ public class ValidateOrderAction implements Action<BeerOrderStatusEnum, BeerOrde
 
 	private final BeerOrderRepository beerOrderRepository;
 	private final BeerOrderMapper beerOrderMapper;
-	private final JmsTemplate jmsTemplate;
+	private final OutboxPublisher outboxPublisher;
 
 	@Override
 	public void execute(StateContext<BeerOrderStatusEnum, BeerOrderEventEnum> context) {
@@ -34,8 +34,8 @@ public class ValidateOrderAction implements Action<BeerOrderStatusEnum, BeerOrde
 		Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(UUID.fromString(beerOrderId));
 
 		beerOrderOptional.ifPresentOrElse(beerOrder -> {
-			jmsTemplate.convertAndSend(JmsConfig.VALIDATE_ORDER_QUEUE, ValidateOrderRequest.builder()
-					.beerOrder(beerOrderMapper.beerOrderToDto(beerOrder))
+			outboxPublisher.publish(JmsConfig.VALIDATE_ORDER_QUEUE, ValidateOrderRequest.builder()
+					.beerOrder(beerOrderMapper.beerOrderToEventDto(beerOrder))
 					.build());
 		}, () -> log.error("Order Not Found. Id: {}", beerOrderId));
 
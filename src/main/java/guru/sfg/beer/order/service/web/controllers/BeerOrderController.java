@@ -1,10 +1,16 @@
 package guru.sfg.beer.order.service.web.controllers;
 
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.services.BeerOrderCursor;
 import guru.sfg.beer.order.service.services.BeerOrderService;
+import guru.sfg.beer.order.service.services.export.BeerOrderExporter;
+import guru.sfg.brewery.model.BeerOrderCursorList;
 import guru.sfg.brewery.model.BeerOrderDto;
 import guru.sfg.brewery.model.BeerOrderPagedList;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -14,7 +20,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 
@@ -24,6 +36,7 @@ public class BeerOrderController {
 
     private static final Integer DEFAULT_PAGE_NUMBER = 0;
     private static final Integer DEFAULT_PAGE_SIZE = 25;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     private final BeerOrderService beerOrderService;
 
@@ -47,17 +60,85 @@ public class BeerOrderController {
         return beerOrderService.listOrders(customerId, PageRequest.of(pageNumber, pageSize));
     }
 
+    /**
+     * Cursor based alternative to {@link #listOrders}: pass the returned {@code nextCursor} to get the following page.
+     * Deep pages cost the same as the first one and the total is only counted on request. Pages hold at most
+     * {@value #MAX_CURSOR_PAGE_SIZE} orders.
+     */
+    @GetMapping("orders/cursor")
+    public BeerOrderCursorList listOrders(@PathVariable("customerId") UUID customerId,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "pageSize", required = false) Integer pageSize,
+                                          @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal) {
+
+        if (pageSize == null || pageSize < 1) {
+            pageSize = DEFAULT_PAGE_SIZE;
+        } else if (pageSize > MAX_CURSOR_PAGE_SIZE) {
+            pageSize = MAX_CURSOR_PAGE_SIZE;
+        }
+
+        BeerOrderCursor beerOrderCursor = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                beerOrderCursor = BeerOrderCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+        }
+
+        return beerOrderService.listOrders(customerId, beerOrderCursor, pageSize, includeTotal);
+    }
+
+    /**
+     * Streams all matching orders as NDJSON in one response, oldest first. {@code from} is inclusive and {@code to}
+     * exclusive, both ISO date-times.
+     */
+    @GetMapping("orders/export")
+    public void exportOrders(@PathVariable("customerId") UUID customerId,
+                             @RequestParam(value = "status", required = false) BeerOrderStatusEnum status,
+                             @RequestParam(value = "from", required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                             @RequestParam(value = "to", required = false)
+                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                             HttpServletResponse response) throws IOException {
+
+        response.setContentType(BeerOrderExporter.NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        beerOrderService.exportOrders(customerId, status, from, to, response.getOutputStream());
+    }
+
     @PostMapping("orders")
     @ResponseStatus(HttpStatus.CREATED)
     public BeerOrderDto placeOrder(@PathVariable("customerId") UUID customerId, @RequestBody BeerOrderDto beerOrderDto) {
         return beerOrderService.placeOrder(customerId, beerOrderDto);
     }
 
+    /**
+     * Places all orders in one transaction, inserting them with JDBC batching.
+     */
+    @PostMapping("orders/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<BeerOrderDto> placeOrders(@PathVariable("customerId") UUID customerId,
+                                          @RequestBody List<BeerOrderDto> beerOrderDtos) {
+        return beerOrderService.placeOrders(customerId, beerOrderDtos);
+    }
+
     @GetMapping("orders/{orderId}")
     public BeerOrderDto getOrder(@PathVariable("customerId") UUID customerId, @PathVariable("orderId") UUID orderId) {
         return beerOrderService.getOrderById(customerId, orderId);
     }
 
+    /**
+     * Server-Sent Events stream of the status changes of the customer's orders, one {@code order-status} event with
+     * an {@link guru.sfg.brewery.model.OrderStatusUpdate} per change, instead of polling {@link #getOrder}.
+     */
+    @GetMapping(value = "orders/status-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatusUpdates(@PathVariable("customerId") UUID customerId) {
+        return beerOrderService.streamStatusUpdates(customerId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many open status streams"));
+    }
+
     @PutMapping("/orders/{orderId}/pickup")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void pickupOrder(@PathVariable("customerId") UUID customerId, @PathVariable("orderId") UUID orderId) {
@@ -2,13 +2,35 @@ package guru.sfg.beer.order.service.web.mappers;
 
 import guru.sfg.beer.order.service.domain.BeerOrderLine;
 import guru.sfg.brewery.model.BeerOrderLineDto;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.DecoratedWith;
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper(uses = {DateMapper.class})
 @DecoratedWith(BeerOrderLineMapperDecorator.class)
 public interface BeerOrderLineMapper {
     BeerOrderLineDto beerOrderLineToDto(BeerOrderLine line);
 
+    List<BeerOrderLineDto> beerOrderLinesToDto(Collection<BeerOrderLine> lines);
+
+    @Named("slim")
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "beerId", source = "beerId")
+    @Mapping(target = "upc", source = "upc")
+    @Mapping(target = "orderQuantity", source = "orderQuantity")
+    @Mapping(target = "quantityAllocated", source = "quantityAllocated")
+    BeerOrderLineDto beerOrderLineToSlimDto(BeerOrderLine line);
+
+    @Named("slim")
+    @IterableMapping(qualifiedByName = "slim")
+    List<BeerOrderLineDto> beerOrderLinesToSlimDto(Collection<BeerOrderLine> lines);
+
     BeerOrderLine dtoToBeerOrderLine(BeerOrderLineDto dto);
 }
@@ -4,15 +4,31 @@ import guru.sfg.beer.order.service.domain.BeerOrderLine;
 import guru.sfg.beer.order.service.services.beer.BeerService;
 import guru.sfg.brewery.model.BeerDto;
 import guru.sfg.brewery.model.BeerOrderLineDto;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
+@Slf4j
 public abstract class BeerOrderLineMapperDecorator implements BeerOrderLineMapper {
 
     private BeerService beerService;
     private BeerOrderLineMapper beerOrderLineMapper;
+    private boolean parallelLookup;
+    private Duration lookupDeadline;
 
     @Autowired
     public void setBeerService(BeerService beerService) {
@@ -25,10 +41,72 @@ public abstract class BeerOrderLineMapperDecorator implements BeerOrderLineMappe
         this.beerOrderLineMapper = beerOrderLineMapper;
     }
 
+    @Value("${sfg.brewery.beer-lookup.parallel:false}")
+    public void setParallelLookup(boolean parallelLookup) {
+        this.parallelLookup = parallelLookup;
+    }
+
+    @Value("${sfg.brewery.beer-lookup.deadline:2s}")
+    public void setLookupDeadline(Duration lookupDeadline) {
+        this.lookupDeadline = lookupDeadline;
+    }
+
     @Override
     public BeerOrderLineDto beerOrderLineToDto(BeerOrderLine line) {
+        return toDto(line, beerService.getBeerByUpc(line.getUpc()));
+    }
+
+    /**
+     * Resolves the beers of all lines with one bulk lookup instead of one lookup per line, or with concurrent
+     * per-UPC lookups when parallel lookup is enabled.
+     */
+    @Override
+    public List<BeerOrderLineDto> beerOrderLinesToDto(Collection<BeerOrderLine> lines) {
+        if (lines == null) {
+            return null;
+        }
+
+        Set<String> upcs = lines.stream()
+                .map(BeerOrderLine::getUpc)
+                .collect(Collectors.toSet());
+        Map<String, BeerDto> beers = parallelLookup ? getBeersInParallel(upcs) : beerService.getBeersByUpc(upcs);
+
+        return lines.stream()
+                .map(line -> toDto(line, Optional.ofNullable(beers.get(line.getUpc()))))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lines whose beer is not resolved by the deadline, or whose lookup failed, are returned without beer details.
+     * Lookups that miss the deadline are left to finish in the background; the beer service read timeout bounds how
+     * long they hold an executor thread.
+     */
+    private Map<String, BeerDto> getBeersInParallel(Set<String> upcs) {
+        Map<String, CompletableFuture<Optional<BeerDto>>> lookups = new HashMap<>();
+        upcs.forEach(upc -> lookups.put(upc, beerService.getBeerByUpcAsync(upc)));
+
+        try {
+            CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0]))
+                    .get(lookupDeadline.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Beer lookups missed the {} ms deadline", lookupDeadline.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Beer lookup failed", e.getCause());
+        }
+
+        Map<String, BeerDto> beers = new HashMap<>();
+        lookups.forEach((upc, lookup) -> {
+            if (lookup.isDone() && !lookup.isCompletedExceptionally()) {
+                lookup.join().ifPresent(beerDto -> beers.put(upc, beerDto));
+            }
+        });
+        return beers;
+    }
+
+    private BeerOrderLineDto toDto(BeerOrderLine line, Optional<BeerDto> beerDtoOptional) {
         BeerOrderLineDto orderLineDto = beerOrderLineMapper.beerOrderLineToDto(line);
-        Optional<BeerDto> beerDtoOptional = beerService.getBeerByUpc(line.getUpc());
 
         beerDtoOptional.ifPresent(beerDto -> {
             orderLineDto.setBeerName(beerDto.getBeerName());
@@ -2,14 +2,42 @@ package guru.sfg.beer.order.service.web.mappers;
 
 import guru.sfg.beer.order.service.domain.BeerOrder;
 import guru.sfg.brewery.model.BeerOrderDto;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.DecoratedWith;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+
+import java.util.List;
 
 @Mapper(uses = {DateMapper.class, BeerOrderLineMapper.class})
+@DecoratedWith(BeerOrderMapperDecorator.class)
 public interface BeerOrderMapper {
 
     @Mapping(target = "customerId", source = "customer.id")
     BeerOrderDto beerOrderToDto(BeerOrder beerOrder);
 
+    List<BeerOrderDto> beerOrdersToDto(List<BeerOrder> beerOrders);
+
+    @Named("withoutLines")
+    @Mapping(target = "customerId", source = "customer.id")
+    @Mapping(target = "beerOrderLines", ignore = true)
+    BeerOrderDto beerOrderToDtoWithoutLines(BeerOrder beerOrder);
+
+    /**
+     * Order as carried by the request events, see {@link BeerOrderMapperDecorator#beerOrderToEventDto}.
+     */
+    @Named("event")
+    @Mapping(target = "customerId", source = "customer.id")
+    BeerOrderDto beerOrderToEventDto(BeerOrder beerOrder);
+
+    @Named("slim")
+    @BeanMapping(ignoreByDefault = true)
+    @Mapping(target = "id", source = "id")
+    @Mapping(target = "version", source = "version")
+    @Mapping(target = "customerRef", source = "customerRef")
+    @Mapping(target = "beerOrderLines", source = "beerOrderLines", qualifiedByName = "slim")
+    BeerOrderDto beerOrderToSlimDto(BeerOrder beerOrder);
+
     BeerOrder dtoToBeerOrder(BeerOrderDto dto);
 }
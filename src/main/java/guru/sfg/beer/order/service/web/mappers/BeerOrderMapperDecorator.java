@@ -0,0 +1,82 @@
+package guru.sfg.beer.order.service.web.mappers;
+
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.BeerOrderLineDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public abstract class BeerOrderMapperDecorator implements BeerOrderMapper {
+
+    private BeerOrderMapper beerOrderMapper;
+    private BeerOrderLineMapper beerOrderLineMapper;
+    private boolean slimEvents;
+
+    @Autowired
+    @Qualifier("delegate")
+    public void setBeerOrderMapper(BeerOrderMapper beerOrderMapper) {
+        this.beerOrderMapper = beerOrderMapper;
+    }
+
+    @Autowired
+    public void setBeerOrderLineMapper(BeerOrderLineMapper beerOrderLineMapper) {
+        this.beerOrderLineMapper = beerOrderLineMapper;
+    }
+
+    @Value("${sfg.brewery.jms.slim-events:false}")
+    public void setSlimEvents(boolean slimEvents) {
+        this.slimEvents = slimEvents;
+    }
+
+    /**
+     * With slim events only the order id, version and customer reference and the line ids, beer ids, UPCs and
+     * quantities are sent, which needs no beer lookups; otherwise the order is mapped in full.
+     */
+    @Override
+    public BeerOrderDto beerOrderToEventDto(BeerOrder beerOrder) {
+        return slimEvents ? beerOrderMapper.beerOrderToSlimDto(beerOrder) : beerOrderToDto(beerOrder);
+    }
+
+    /**
+     * Maps the lines of all orders together so the beers of a whole page are resolved with a single lookup. The line
+     * DTOs are handed back to their orders by line, so the lines of an order may iterate in any order.
+     */
+    @Override
+    public List<BeerOrderDto> beerOrdersToDto(List<BeerOrder> beerOrders) {
+        if (beerOrders == null) {
+            return null;
+        }
+
+        List<BeerOrderLine> lines = beerOrders.stream()
+                .map(BeerOrder::getBeerOrderLines)
+                .filter(Objects::nonNull)
+                .flatMap(Collection::stream)
+                .collect(Collectors.toList());
+        List<BeerOrderLineDto> lineDtos = beerOrderLineMapper.beerOrderLinesToDto(lines);
+
+        Map<BeerOrderLine, BeerOrderLineDto> lineDtosByLine = new IdentityHashMap<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            lineDtosByLine.put(lines.get(i), lineDtos.get(i));
+        }
+
+        return beerOrders.stream().map(beerOrder -> {
+            BeerOrderDto beerOrderDto = beerOrderMapper.beerOrderToDtoWithoutLines(beerOrder);
+
+            if (beerOrder.getBeerOrderLines() != null) {
+                beerOrderDto.setBeerOrderLines(beerOrder.getBeerOrderLines().stream()
+                        .map(lineDtosByLine::get)
+                        .collect(Collectors.toList()));
+            }
+            return beerOrderDto;
+        }).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,29 @@
+package guru.sfg.brewery.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerOrderCursorList {
+
+    private List<BeerOrderDto> content;
+
+    /**
+     * Opaque token for the following page, null on the last page.
+     */
+    private String nextCursor;
+
+    /**
+     * Only present when the total was requested.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+}
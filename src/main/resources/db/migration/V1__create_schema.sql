@@ -0,0 +1,47 @@
+-- Schema as previously created by Hibernate (spring.jpa.hibernate.ddl-auto), constraint names included, so databases
+-- created that way can be baselined at this version once their UUID columns have been converted with
+-- scripts/mysql-uuid-binary-migration.sql. Tables added since then are created by the later migrations, which also
+-- run on a baselined database.
+
+create table customer
+(
+    id                 binary(16)   not null,
+    version            bigint,
+    created_date       datetime(6),
+    last_modified_date datetime(6),
+    customer_name      varchar(255),
+    api_key            binary(16),
+    primary key (id)
+);
+
+create table beer_order
+(
+    id                        binary(16) not null,
+    version                   bigint,
+    created_date              datetime(6),
+    last_modified_date        datetime(6),
+    customer_ref              varchar(255),
+    customer_id               binary(16),
+    order_status              integer,
+    order_status_callback_url varchar(255),
+    primary key (id)
+);
+
+create table beer_order_line
+(
+    id                 binary(16) not null,
+    version            bigint,
+    created_date       datetime(6),
+    last_modified_date datetime(6),
+    beer_order_id      binary(16),
+    beer_id            binary(16),
+    upc                varchar(255),
+    order_quantity     integer,
+    quantity_allocated integer,
+    primary key (id)
+);
+
+alter table beer_order
+    add constraint FK5siih2e7vpx70nx4wexpxpji foreign key (customer_id) references customer (id);
+alter table beer_order_line
+    add constraint FKhkgofxhwx8yw9m3vat8mgtnxs foreign key (beer_order_id) references beer_order (id);
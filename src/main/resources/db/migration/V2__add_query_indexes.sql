@@ -0,0 +1,6 @@
+-- Indexes for the repository queries: a customer's orders by creation date (BeerOrderRepository.findAllByCustomer),
+-- orders in a status by last change (findAllByOrderStatus) and customers by name (findAllByCustomerNameLike).
+
+create index idx_beer_order_customer_created on beer_order (customer_id, created_date);
+create index idx_beer_order_status_modified on beer_order (order_status, last_modified_date);
+create index idx_customer_name on customer (customer_name);
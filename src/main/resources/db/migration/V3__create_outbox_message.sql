@@ -0,0 +1,18 @@
+-- Transactional outbox: messages are stored with their encoded body and its content type in the transaction that
+-- produces them and sent by the relay, which reads in (created_date, id) order, ids being time ordered within the
+-- same millisecond. A database baselined at V1 may already have the table, created by Hibernate in this shape.
+
+create table if not exists outbox_message
+(
+    id                 binary(16)   not null,
+    version            bigint,
+    created_date       datetime(6),
+    last_modified_date datetime(6),
+    destination        varchar(255) not null,
+    payload_type       varchar(255) not null,
+    content_type       varchar(255) not null,
+    body               longblob     not null,
+    primary key (id)
+);
+
+create index idx_outbox_message_created on outbox_message (created_date, id);
@@ -0,0 +1,12 @@
+-- Inbox of processed result messages, keyed by JMS message id and order id, and indexed by age for purging. A database
+-- baselined at V1 may already have the table, created by Hibernate in this shape.
+
+create table if not exists inbox_message
+(
+    message_key   varchar(100) not null,
+    beer_order_id binary(16),
+    received_date datetime(6),
+    primary key (message_key)
+);
+
+create index idx_inbox_message_received on inbox_message (received_date);
@@ -0,0 +1,69 @@
+-- Converts the UUID columns of an existing beerorderservice schema from their text form (varchar(36)) to binary(16).
+-- Run with the service stopped, before starting a version that stores UUIDs as binary(16):
+--   mysql -u root -p beerorderservice < mysql-uuid-binary-migration.sql
+--
+-- Each column is checked in information_schema first and left alone once it is binary(16), or when its table does
+-- not exist, so running the script again does nothing. A column still to be converted is made binary safe, then
+-- the values not yet 16 bytes long are rewritten to the 16 UUID bytes and finally the column is narrowed to
+-- binary(16), so a run that was interrupted can be repeated as well. beer_order_line.beer_id was already binary,
+-- but padded to 255 bytes, so it is only truncated.
+
+DELIMITER //
+
+DROP PROCEDURE IF EXISTS convert_uuid_column //
+CREATE PROCEDURE convert_uuid_column(IN table_name_in VARCHAR(64), IN column_name_in VARCHAR(64),
+                                     IN not_null BOOLEAN)
+BEGIN
+    DECLARE current_type VARCHAR(64);
+    DECLARE current_length BIGINT;
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET current_type = NULL;
+
+    SELECT data_type, character_maximum_length
+    INTO current_type, current_length
+    FROM information_schema.columns
+    WHERE table_schema = DATABASE()
+      AND table_name = table_name_in
+      AND column_name = column_name_in;
+
+    IF current_type IS NOT NULL AND NOT (current_type = 'binary' AND current_length = 16) THEN
+        SET @sql_text = CONCAT('ALTER TABLE ', table_name_in, ' MODIFY ', column_name_in,
+                                ' VARBINARY(', GREATEST(current_length, 36), ')', IF(not_null, ' NOT NULL', ''));
+        PREPARE stmt FROM @sql_text;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+
+        SET @sql_text = CONCAT('UPDATE ', table_name_in, ' SET ', column_name_in, ' = IF(LENGTH(', column_name_in,
+                                ') = 36, UNHEX(REPLACE(', column_name_in, ', ''-'', '''')), LEFT(', column_name_in,
+                                ', 16)) WHERE LENGTH(', column_name_in, ') > 16');
+        PREPARE stmt FROM @sql_text;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+
+        SET @sql_text = CONCAT('ALTER TABLE ', table_name_in, ' MODIFY ', column_name_in, ' BINARY(16)',
+                                IF(not_null, ' NOT NULL', ''));
+        PREPARE stmt FROM @sql_text;
+        EXECUTE stmt;
+        DEALLOCATE PREPARE stmt;
+    END IF;
+END //
+
+DELIMITER ;
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+CALL convert_uuid_column('customer', 'id', TRUE);
+CALL convert_uuid_column('customer', 'api_key', FALSE);
+
+CALL convert_uuid_column('beer_order', 'id', TRUE);
+CALL convert_uuid_column('beer_order', 'customer_id', FALSE);
+
+CALL convert_uuid_column('beer_order_line', 'id', TRUE);
+CALL convert_uuid_column('beer_order_line', 'beer_order_id', FALSE);
+CALL convert_uuid_column('beer_order_line', 'beer_id', FALSE);
+
+CALL convert_uuid_column('outbox_message', 'id', TRUE);
+CALL convert_uuid_column('inbox_message', 'beer_order_id', FALSE);
+
+SET FOREIGN_KEY_CHECKS = 1;
+
+DROP PROCEDURE convert_uuid_column;
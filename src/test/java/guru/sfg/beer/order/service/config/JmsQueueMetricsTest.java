@@ -0,0 +1,67 @@
+package guru.sfg.beer.order.service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.JmsAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.artemis.ArtemisAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.core.JmsTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {JmsQueueMetrics.class, SimpleMeterRegistry.class},
+		properties = "spring.artemis.embedded.queues=" + JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE + "," + JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE)
+@ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, ArtemisAutoConfiguration.class, JmsAutoConfiguration.class})
+public class JmsQueueMetricsTest {
+
+	@Autowired
+	JmsQueueMetrics jmsQueueMetrics;
+
+	@Autowired
+	JmsTemplate jmsTemplate;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		jmsTemplate.setReceiveTimeout(JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT);
+		while (jmsTemplate.receive(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE) != null) {
+			// start from an empty queue
+		}
+	}
+
+	@Test
+	void testDepthAndOldestAgeAreReadFromBroker() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			jmsTemplate.convertAndSend(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE, "result " + i);
+		}
+		Thread.sleep(50);
+
+		jmsQueueMetrics.sample();
+
+		assertThat(gauge("beer.order.jms.queue.depth", JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE)).isEqualTo(3);
+		assertThat(gauge("beer.order.jms.queue.oldest.age", JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE)).isGreaterThanOrEqualTo(50);
+		assertThat(gauge("beer.order.jms.queue.depth", JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE)).isZero();
+	}
+
+	@Test
+	void testEmptyQueueHasNoLag() {
+		jmsTemplate.convertAndSend(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE, "result");
+		jmsTemplate.receive(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE);
+
+		jmsQueueMetrics.sample();
+
+		assertThat(gauge("beer.order.jms.queue.depth", JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE)).isZero();
+		assertThat(gauge("beer.order.jms.queue.oldest.age", JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE)).isZero();
+	}
+
+	private double gauge(String name, String queue) {
+		return meterRegistry.get(name).tag("queue", queue).gauge().value();
+	}
+}
@@ -0,0 +1,122 @@
+package guru.sfg.beer.order.service.config;
+
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter.WireFormat;
+import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.BeerOrderLineDto;
+import guru.sfg.brewery.model.events.AllocateOrderRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.JmsAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.artemis.ArtemisAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.core.JmsTemplate;
+
+import javax.jms.BytesMessage;
+import javax.jms.Message;
+import javax.jms.TextMessage;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sends messages through the embedded broker and reads them back, so what is checked is what a consumer receives.
+ */
+@SpringBootTest(classes = JmsConfig.class, properties = {
+		"spring.artemis.embedded.queues=" + WireFormatMessageConverterTest.JSON_QUEUE + "," + WireFormatMessageConverterTest.SMILE_QUEUE,
+		"sfg.brewery.jms.smile-destinations=" + WireFormatMessageConverterTest.SMILE_QUEUE,
+		"spring.jms.template.receive-timeout=2000"})
+@ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, JacksonAutoConfiguration.class, ArtemisAutoConfiguration.class, JmsAutoConfiguration.class})
+public class WireFormatMessageConverterTest {
+
+	static final String JSON_QUEUE = "wire-format-json-test";
+	static final String SMILE_QUEUE = "wire-format-smile-test";
+
+	@Autowired
+	WireFormatMessageConverter messageConverter;
+
+	@Autowired
+	JmsTemplate jmsTemplate;
+
+	AllocateOrderRequest request;
+
+	@BeforeEach
+	void setUp() {
+		request = AllocateOrderRequest.builder()
+				.beerOrderDto(BeerOrderDto.builder()
+						.id(UUID.randomUUID())
+						.version(3)
+						.createdDate(OffsetDateTime.of(2020, 7, 14, 12, 30, 0, 0, ZoneOffset.UTC))
+						.customerId(UUID.randomUUID())
+						.customerRef("wire-format")
+						.orderStatus("VALIDATED")
+						.beerOrderLines(List.of(BeerOrderLineDto.builder()
+								.id(UUID.randomUUID())
+								.upc("0631234200036")
+								.beerName("Mango Bobs")
+								.orderQuantity(12)
+								.quantityAllocated(0)
+								.build()))
+						.build())
+				.build();
+	}
+
+	@Test
+	void testJsonRoundTrip() throws Exception {
+		jmsTemplate.send(JSON_QUEUE, session -> messageConverter.toMessage(request, session, JSON_QUEUE));
+
+		Message message = jmsTemplate.receive(JSON_QUEUE);
+
+		assertThat(message).isInstanceOf(TextMessage.class);
+		assertThat(message.getStringProperty(WireFormatMessageConverter.CONTENT_TYPE_PROPERTY)).isNull();
+		assertThat(messageConverter.fromMessage(message)).isEqualTo(request);
+	}
+
+	@Test
+	void testSmileRoundTrip() throws Exception {
+		jmsTemplate.send(SMILE_QUEUE, session -> messageConverter.toMessage(request, session, SMILE_QUEUE));
+
+		Message message = jmsTemplate.receive(SMILE_QUEUE);
+
+		assertThat(message).isInstanceOf(BytesMessage.class);
+		assertThat(message.getStringProperty(WireFormatMessageConverter.CONTENT_TYPE_PROPERTY))
+				.isEqualTo(WireFormatMessageConverter.SMILE_CONTENT_TYPE);
+		assertThat(messageConverter.fromMessage(message)).isEqualTo(request);
+	}
+
+	@Test
+	void testEncodedBodyIsSentAsMessageOfItsFormat() {
+		for (WireFormat wireFormat : WireFormat.values()) {
+			byte[] body = messageConverter.encode(request, wireFormat);
+
+			jmsTemplate.send(JSON_QUEUE, session -> messageConverter.toMessage(body,
+					AllocateOrderRequest.class.getName(), wireFormat, session));
+
+			assertThat(jmsTemplate.receiveAndConvert(JSON_QUEUE)).as(wireFormat.name()).isEqualTo(request);
+		}
+	}
+
+	@Test
+	void testLegacyJsonMessageWithoutContentTypeIsRead() throws Exception {
+		String json = "{\"beerOrderDto\":{\"id\":\"" + request.getBeerOrderDto().getId() + "\","
+				+ "\"version\":3,\"customerRef\":\"wire-format\",\"beerOrderLines\":[]}}";
+
+		jmsTemplate.send(JSON_QUEUE, session -> {
+			TextMessage message = session.createTextMessage(json);
+			message.setStringProperty(WireFormatMessageConverter.TYPE_ID_PROPERTY, AllocateOrderRequest.class.getName());
+			return message;
+		});
+
+		AllocateOrderRequest received = (AllocateOrderRequest) jmsTemplate.receiveAndConvert(JSON_QUEUE);
+
+		assertThat(received.getBeerOrderDto().getId()).isEqualTo(request.getBeerOrderDto().getId());
+		assertThat(received.getBeerOrderDto().getVersion()).isEqualTo(3);
+		assertThat(received.getBeerOrderDto().getCustomerRef()).isEqualTo("wire-format");
+	}
+}
@@ -0,0 +1,66 @@
+package guru.sfg.beer.order.service.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeOrderedUuidGeneratorTest {
+
+	@Test
+	void testVersionAndVariant() {
+		for (int i = 0; i < 1000; i++) {
+			UUID uuid = TimeOrderedUuidGenerator.generate();
+
+			assertThat(uuid.version()).isEqualTo(7);
+			assertThat(uuid.variant()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void testTimestampIsUnixMillis() {
+		long before = System.currentTimeMillis();
+		UUID uuid = TimeOrderedUuidGenerator.generate();
+		long after = System.currentTimeMillis();
+
+		// the counter may move the timestamp on by a millisecond when it runs out
+		assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after + 1);
+	}
+
+	@Test
+	void testIdsSortInGenerationOrderAsBinary() throws InterruptedException {
+		List<byte[]> ids = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			ids.add(bytes(TimeOrderedUuidGenerator.generate()));
+			if (i % 1000 == 0) {
+				Thread.sleep(2);
+			}
+		}
+
+		for (int i = 1; i < ids.size(); i++) {
+			assertThat(Arrays.compareUnsigned(ids.get(i - 1), ids.get(i))).as("id %d", i).isNegative();
+		}
+	}
+
+	@Test
+	void testIdsOfDifferentMillisecondsSortByTime() throws InterruptedException {
+		UUID earlier = TimeOrderedUuidGenerator.generate();
+		Thread.sleep(2);
+		UUID later = TimeOrderedUuidGenerator.generate();
+
+		assertThat(later.getMostSignificantBits() >>> 16).isGreaterThan(earlier.getMostSignificantBits() >>> 16);
+		assertThat(Arrays.compareUnsigned(bytes(earlier), bytes(later))).isNegative();
+	}
+
+	private static byte[] bytes(UUID uuid) {
+		return ByteBuffer.allocate(16)
+				.putLong(uuid.getMostSignificantBits())
+				.putLong(uuid.getLeastSignificantBits())
+				.array();
+	}
+}
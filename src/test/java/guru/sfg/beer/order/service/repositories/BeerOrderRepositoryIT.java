@@ -0,0 +1,131 @@
+package guru.sfg.beer.order.service.repositories;
+
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.Customer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements of the order listings, which must not grow with the number of orders on a page, and
+ * checks the compare-and-set status update.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BeerOrderRepositoryIT {
+
+	private static final int ORDERS = 12;
+	private static final int LINES_PER_ORDER = 3;
+
+	@Autowired
+	BeerOrderRepository beerOrderRepository;
+
+	@Autowired
+	TestEntityManager testEntityManager;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	Customer customer;
+	Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		customer = testEntityManager.persist(Customer.builder()
+				.customerName("Statement Count")
+				.apiKey(UUID.randomUUID())
+				.build());
+
+		for (int i = 0; i < ORDERS; i++) {
+			BeerOrder beerOrder = BeerOrder.builder()
+					.customer(customer)
+					.customerRef("ref-" + i)
+					.orderStatus(BeerOrderStatusEnum.NEW)
+					.build();
+
+			Set<BeerOrderLine> lines = new HashSet<>();
+			for (int j = 0; j < LINES_PER_ORDER; j++) {
+				lines.add(BeerOrderLine.builder()
+						.beerOrder(beerOrder)
+						.upc("063123420003" + j)
+						.orderQuantity(j + 1)
+						.build());
+			}
+			beerOrder.setBeerOrderLines(lines);
+			testEntityManager.persist(beerOrder);
+		}
+		testEntityManager.flush();
+		testEntityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void testFindAllByCustomerPage() {
+		Page<BeerOrder> page = beerOrderRepository.findAllByCustomer(customer, PageRequest.of(1, 5));
+
+		assertThat(page.getContent()).hasSize(5);
+		assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+		assertLinesLoaded(page.getContent());
+
+		// page of ids, count, orders with lines
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+	}
+
+	@Test
+	void testFindAllByCustomerKeyset() {
+		List<BeerOrder> firstPage =
+				beerOrderRepository.findAllByCustomerOrderByCreatedDateDescIdDesc(customer, PageRequest.of(0, 5));
+		BeerOrder last = firstPage.get(firstPage.size() - 1);
+		List<BeerOrder> secondPage = beerOrderRepository.findAllByCustomerAfter(customer, last.getCreatedDate(),
+				last.getId(), PageRequest.of(0, 5));
+
+		assertThat(firstPage).hasSize(5);
+		assertThat(secondPage).hasSize(5).doesNotContainAnyElementsOf(firstPage);
+		assertLinesLoaded(firstPage);
+		assertLinesLoaded(secondPage);
+
+		// page of ids and orders with lines, for each page
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+	}
+
+	@Test
+	void testUpdateOrderStatusComparesAndSets() {
+		UUID beerOrderId = beerOrderRepository.findAllByCustomer(customer, PageRequest.of(0, 1)).getContent().get(0).getId();
+		testEntityManager.clear();
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+
+		assertThat(beerOrderRepository.updateOrderStatus(beerOrderId, BeerOrderStatusEnum.NEW,
+				BeerOrderStatusEnum.VALIDATION_PENDING, now)).isEqualTo(1);
+		assertThat(beerOrderRepository.updateOrderStatus(beerOrderId, BeerOrderStatusEnum.NEW,
+				BeerOrderStatusEnum.CANCELLED, now)).isEqualTo(0);
+
+		BeerOrder beerOrder = beerOrderRepository.findById(beerOrderId).orElseThrow();
+		assertThat(beerOrder.getOrderStatus()).isEqualTo(BeerOrderStatusEnum.VALIDATION_PENDING);
+		assertThat(beerOrder.getVersion()).isEqualTo(1L);
+	}
+
+	private void assertLinesLoaded(List<BeerOrder> beerOrders) {
+		beerOrders.forEach(beerOrder -> {
+			assertThat(beerOrder.getCustomer().getCustomerName()).isEqualTo("Statement Count");
+			assertThat(beerOrder.getBeerOrderLines()).hasSize(LINES_PER_ORDER);
+		});
+	}
+}
@@ -0,0 +1,64 @@
+package guru.sfg.beer.order.service.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the statements behind the repository queries, against the schema created by the Flyway
+ * migrations, and checks that they are answered from an index instead of a table scan.
+ */
+@DataJpaTest
+public class QueryIndexIT {
+
+	private static final String ID = "X'0174f1c2a3b47c5d8e9f000000000001'";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * H2 may answer this one from the index behind the customer foreign key, which is as selective on an empty table,
+	 * so the plan only shows an index lookup. That the index MySQL needs for the sort exists, with the customer ahead
+	 * of the creation date, is checked in the schema.
+	 */
+	@Test
+	void testFindAllByCustomerUsesIndex() {
+		assertThat(indexColumns("idx_beer_order_customer_created"))
+				.containsExactly("CUSTOMER_ID", "CREATED_DATE");
+		assertThat(explain("select * from beer_order where customer_id = " + ID + " order by created_date desc limit 25"))
+				.doesNotContain("tableScan")
+				.containsIgnoringCase("customer_id = " + ID);
+	}
+
+	@Test
+	void testFindAllByOrderStatusUsesStatusModifiedIndex() {
+		assertThat(explain("select * from beer_order where order_status = 1"))
+				.containsIgnoringCase("idx_beer_order_status_modified");
+	}
+
+	@Test
+	void testFindAllByCustomerNameLikeUsesNameIndex() {
+		assertThat(explain("select * from customer where customer_name like 'Tasting Room'"))
+				.containsIgnoringCase("idx_customer_name");
+	}
+
+	@Test
+	void testOutboxBatchUsesCreatedIndex() {
+		assertThat(explain("select * from outbox_message order by created_date limit 100"))
+				.containsIgnoringCase("idx_outbox_message_created");
+	}
+
+	private String explain(String sql) {
+		return jdbcTemplate.queryForObject("explain " + sql, String.class);
+	}
+
+	private List<String> indexColumns(String indexName) {
+		return jdbcTemplate.queryForList("select upper(column_name) from information_schema.indexes"
+				+ " where upper(index_name) = upper(?) order by ordinal_position", String.class, indexName);
+	}
+}
@@ -0,0 +1,41 @@
+package guru.sfg.beer.order.service.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BeerOrderCursorTest {
+
+	@Test
+	void testTokenKeepsPositionToTheNanosecond() {
+		Timestamp createdDate = Timestamp.valueOf("2020-08-01 12:34:56.123456789");
+		UUID id = UUID.randomUUID();
+
+		String token = new BeerOrderCursor(createdDate, id).encode();
+		BeerOrderCursor cursor = BeerOrderCursor.decode(token);
+
+		assertThat(token).doesNotContain("+", "/", "=");
+		assertThat(cursor.getCreatedDate()).isEqualTo(createdDate);
+		assertThat(cursor.getId()).isEqualTo(id);
+	}
+
+	@Test
+	void testInvalidTokensAreRejected() {
+		String truncated = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[12]);
+		byte[] badNanos = Base64.getUrlDecoder().decode(
+				new BeerOrderCursor(new Timestamp(0), UUID.randomUUID()).encode());
+		badNanos[Long.BYTES] = (byte) 0x7f;
+
+		assertThatThrownBy(() -> BeerOrderCursor.decode("not a cursor"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BeerOrderCursor.decode(truncated))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BeerOrderCursor.decode(Base64.getUrlEncoder().encodeToString(badNanos)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
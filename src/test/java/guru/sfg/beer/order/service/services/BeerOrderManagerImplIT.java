@@ -13,8 +13,13 @@ import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
 import guru.sfg.beer.order.service.repositories.CustomerRepository;
 import guru.sfg.beer.order.service.services.beer.BeerServiceImpl;
 import guru.sfg.brewery.model.BeerDto;
+import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.BeerOrderLineDto;
 import guru.sfg.brewery.model.events.AllocationFailureEvent;
 import guru.sfg.brewery.model.events.DeallocateOrderRequest;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,9 +29,15 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.jms.core.JmsTemplate;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.github.jenspiegsa.wiremockextension.ManagedWireMockServer.with;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
@@ -40,7 +51,10 @@ import static org.jgroups.util.Util.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @ExtendWith(WireMockExtension.class)
-@SpringBootTest
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "guru.sfg.beer.order.service.services.BeerOrderManagerImplIT$InsertCounter"})
 public class BeerOrderManagerImplIT {
 
 	@Autowired
@@ -55,6 +69,8 @@ public class BeerOrderManagerImplIT {
 	private WireMockServer wireMockServer;
 	@Autowired
 	private JmsTemplate jmsTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
 
 	private Customer testCustomer;
 	private UUID beerId = UUID.randomUUID();
@@ -106,6 +122,57 @@ public class BeerOrderManagerImplIT {
 		});
 	}
 
+	@Test
+	void testNewOrdersToAllocated() throws JsonProcessingException {
+		BeerDto beerDto = BeerDto.builder().id(beerId).upc("12345").build();
+
+		wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + "12345")
+				.willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+
+		List<BeerOrder> savedBeerOrders = beerOrderManager.newBeerOrders(
+				List.of(createBeerOrder(), createBeerOrder(), createBeerOrder()));
+
+		assertThat(savedBeerOrders).hasSize(3).allSatisfy(beerOrder -> assertNotNull(beerOrder.getId()));
+
+		await().untilAsserted(() -> savedBeerOrders.forEach(beerOrder -> {
+			BeerOrder foundOrder = beerOrderRepository.findById(beerOrder.getId()).get();
+			assertEquals(ALLOCATED, foundOrder.getOrderStatus());
+		}));
+	}
+
+	@Test
+	void testNewOrdersAreInsertedInBatches() {
+		int orders = 10;
+		int linesPerOrder = 3;
+		List<BeerOrder> beerOrders = new ArrayList<>();
+
+		for (int i = 0; i < orders; i++) {
+			BeerOrder beerOrder = createBeerOrder();
+			for (int j = 1; j < linesPerOrder; j++) {
+				beerOrder.getBeerOrderLines().add(BeerOrderLine.builder()
+						.beerId(beerId)
+						.upc("6789" + j)
+						.orderQuantity(j)
+						.beerOrder(beerOrder)
+						.build());
+			}
+			beerOrders.add(beerOrder);
+		}
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		InsertCounter.clear();
+
+		beerOrderManager.newBeerOrders(beerOrders);
+
+		assertThat(statistics.getEntityStatistics(BeerOrder.class.getName()).getInsertCount()).isEqualTo(orders);
+		assertThat(statistics.getEntityStatistics(BeerOrderLine.class.getName()).getInsertCount())
+				.isEqualTo(orders * linesPerOrder);
+		// one statement per table, executed as a batch
+		assertThat(InsertCounter.prepared("beer_order")).isEqualTo(1);
+		assertThat(InsertCounter.prepared("beer_order_line")).isEqualTo(1);
+	}
+
 	@Test
 	void testFailedValidation() throws JsonProcessingException {
 		BeerDto beerDto = BeerDto.builder().id(beerId).upc("12345").build();
@@ -153,6 +220,38 @@ public class BeerOrderManagerImplIT {
 		assertEquals(PICKED_UP, pickedUpOrder.getOrderStatus());
 	}
 
+	@Test
+	void testAllocationUpdatesOnlyChangedLines() {
+		BeerOrder beerOrder = createBeerOrder();
+		beerOrder.setOrderStatus(BeerOrderStatusEnum.ALLOCATION_PENDING);
+		beerOrder.getBeerOrderLines().add(BeerOrderLine.builder()
+				.beerId(beerId)
+				.upc("67890")
+				.orderQuantity(3)
+				.quantityAllocated(0)
+				.beerOrder(beerOrder)
+				.build());
+		BeerOrder savedBeerOrder = beerOrderRepository.saveAndFlush(beerOrder);
+
+		BeerOrderLine allocatedLine = line(savedBeerOrder, "12345");
+		BeerOrderLine unchangedLine = line(savedBeerOrder, "67890");
+		BeerOrderDto allocationResult = BeerOrderDto.builder()
+				.id(savedBeerOrder.getId())
+				.beerOrderLines(List.of(
+						BeerOrderLineDto.builder().id(allocatedLine.getId()).quantityAllocated(1).build(),
+						BeerOrderLineDto.builder().id(unchangedLine.getId()).quantityAllocated(0).build()))
+				.build();
+
+		beerOrderManager.beerOrderAllocationPassed(allocationResult);
+
+		BeerOrder allocatedOrder = beerOrderRepository.findById(savedBeerOrder.getId()).get();
+		assertEquals(ALLOCATED, allocatedOrder.getOrderStatus());
+		assertThat(line(allocatedOrder, "12345").getQuantityAllocated()).isEqualTo(1);
+		assertThat(line(allocatedOrder, "12345").getVersion()).isEqualTo(allocatedLine.getVersion() + 1);
+		assertThat(line(allocatedOrder, "67890").getQuantityAllocated()).isZero();
+		assertThat(line(allocatedOrder, "67890").getVersion()).isEqualTo(unchangedLine.getVersion());
+	}
+
 	@Test
 	void testAllocationFailure() throws JsonProcessingException {
 		BeerDto beerDto = BeerDto.builder().id(beerId).upc("12345").build();
@@ -273,6 +372,13 @@ public class BeerOrderManagerImplIT {
 		assertThat(deallocateOrderRequest.getBeerOrderDto().getId()).isEqualTo(savedBeerOrder.getId());
 	}
 
+	private static BeerOrderLine line(BeerOrder beerOrder, String upc) {
+		return beerOrder.getBeerOrderLines().stream()
+				.filter(line -> line.getUpc().equals(upc))
+				.findFirst()
+				.orElseThrow();
+	}
+
 	public BeerOrder createBeerOrder() {
 		BeerOrder beerOrder = BeerOrder.builder()
 				.customer(testCustomer)
@@ -290,4 +396,30 @@ public class BeerOrderManagerImplIT {
 
 		return beerOrder;
 	}
+
+	/**
+	 * Counts the insert statements Hibernate prepares per table; a JDBC batch prepares its statement once.
+	 */
+	public static class InsertCounter implements StatementInspector {
+
+		private static final Map<String, AtomicInteger> PREPARED = new ConcurrentHashMap<>();
+
+		static void clear() {
+			PREPARED.clear();
+		}
+
+		static int prepared(String table) {
+			AtomicInteger count = PREPARED.get(table);
+			return count != null ? count.get() : 0;
+		}
+
+		@Override
+		public String inspect(String sql) {
+			if (sql.startsWith("insert into ")) {
+				String table = sql.substring("insert into ".length()).split("[ (]", 2)[0];
+				PREPARED.computeIfAbsent(table, key -> new AtomicInteger()).incrementAndGet();
+			}
+			return sql;
+		}
+	}
 }
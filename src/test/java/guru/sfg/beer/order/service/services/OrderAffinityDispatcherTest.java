@@ -0,0 +1,122 @@
+package guru.sfg.beer.order.service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderAffinityDispatcherTest {
+
+	private static final int LANES = 2;
+
+	OrderAffinityDispatcher dispatcher;
+	UUID firstLaneOrderId;
+	UUID secondLaneOrderId;
+
+	@BeforeEach
+	void setUp() {
+		dispatcher = new OrderAffinityDispatcher(new SimpleMeterRegistry(), LANES);
+		firstLaneOrderId = orderIdOnLane(0);
+		secondLaneOrderId = orderIdOnLane(1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void testWorkForOneOrderRunsOnItsLane() {
+		String first = dispatcher.execute(firstLaneOrderId, () -> Thread.currentThread().getName());
+		String again = dispatcher.execute(firstLaneOrderId, () -> Thread.currentThread().getName());
+		String other = dispatcher.execute(secondLaneOrderId, () -> Thread.currentThread().getName());
+
+		assertThat(first).isEqualTo("order-lane-0").isEqualTo(again);
+		assertThat(other).isEqualTo("order-lane-1");
+	}
+
+	@Test
+	void testOrdersOfDifferentLanesRunInParallel() throws Exception {
+		CountDownLatch blocking = new CountDownLatch(1);
+		CompletableFuture<Void> blocked = CompletableFuture.runAsync(() ->
+				dispatcher.execute(firstLaneOrderId, () -> await(blocking)));
+
+		dispatcher.execute(secondLaneOrderId, () -> assertThat(blocked).isNotDone());
+
+		blocking.countDown();
+		blocked.get(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void testWorkDispatchedFromItsOwnLaneRunsInline() {
+		String nested = dispatcher.execute(firstLaneOrderId, () ->
+				dispatcher.execute(firstLaneOrderId, () -> Thread.currentThread().getName()));
+
+		assertThat(nested).isEqualTo("order-lane-0");
+	}
+
+	@Test
+	void testFailureIsRethrownToTheCaller() {
+		IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+				dispatcher.execute(firstLaneOrderId, () -> {
+					throw new IllegalStateException("failed");
+				}));
+
+		assertThat(thrown).hasMessage("failed");
+	}
+
+	@Test
+	void testHeldLanesWaitForWorkOnSeveralOrders() throws Exception {
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch releasing = new CountDownLatch(1);
+		AtomicBoolean released = new AtomicBoolean();
+		AtomicBoolean ranAfterRelease = new AtomicBoolean();
+
+		CompletableFuture<String> held = CompletableFuture.supplyAsync(() ->
+				dispatcher.executeAll(List.of(firstLaneOrderId, secondLaneOrderId), () -> {
+					holding.countDown();
+					await(releasing);
+					released.set(true);
+					return Thread.currentThread().getName();
+				}));
+		await(holding);
+
+		CompletableFuture<Void> queued = CompletableFuture.runAsync(() ->
+				dispatcher.execute(secondLaneOrderId, () -> ranAfterRelease.set(released.get())));
+		Thread.sleep(100);
+		assertThat(queued).isNotDone();
+
+		releasing.countDown();
+		queued.get(1, TimeUnit.SECONDS);
+
+		assertThat(held.get()).doesNotStartWith("order-lane-");
+		assertThat(ranAfterRelease).isTrue();
+	}
+
+	private UUID orderIdOnLane(int lane) {
+		UUID orderId;
+		do {
+			orderId = UUID.randomUUID();
+		} while (Math.floorMod(orderId.hashCode(), LANES) != lane);
+		return orderId;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
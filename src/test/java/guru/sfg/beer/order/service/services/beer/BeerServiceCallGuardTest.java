@@ -0,0 +1,204 @@
+package guru.sfg.beer.order.service.services.beer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BeerServiceCallGuardTest {
+
+	private static final int FAILURE_THRESHOLD = 3;
+	private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+	MutableClock clock = new MutableClock();
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	BeerServiceCallGuard guard;
+	AtomicInteger calls = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		guard = new BeerServiceCallGuard(1, Duration.ofMillis(50), FAILURE_THRESHOLD, OPEN_DURATION, meterRegistry, clock);
+	}
+
+	@Test
+	void testCircuitOpensAfterConsecutiveFailures() {
+		failTimes(FAILURE_THRESHOLD);
+
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.OPEN);
+		assertThrows(BeerServiceUnavailableException.class, () -> guard.call(this::succeed));
+		assertThat(calls).hasValue(FAILURE_THRESHOLD);
+		assertThat(rejections("circuit")).isEqualTo(1);
+		assertThat(meterRegistry.get("beer.service.circuit.open").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	void testSuccessResetsFailureCount() {
+		failTimes(FAILURE_THRESHOLD - 1);
+		guard.call(this::succeed);
+		failTimes(FAILURE_THRESHOLD - 1);
+
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.CLOSED);
+	}
+
+	@Test
+	void testClientErrorCountsAsSuccess() {
+		failTimes(FAILURE_THRESHOLD - 1);
+
+		assertThrows(HttpClientErrorException.NotFound.class, () -> guard.call(() -> {
+			calls.incrementAndGet();
+			throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+		}));
+		failTimes(FAILURE_THRESHOLD - 1);
+
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.CLOSED);
+	}
+
+	@Test
+	void testTrialCallClosesCircuitAfterOpenDuration() {
+		failTimes(FAILURE_THRESHOLD);
+
+		clock.advance(OPEN_DURATION.minusMillis(1));
+		assertThrows(BeerServiceUnavailableException.class, () -> guard.call(this::succeed));
+
+		clock.advance(Duration.ofMillis(1));
+		assertThat(guard.call(this::succeed)).isEqualTo("beer");
+
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.CLOSED);
+		assertThat(meterRegistry.get("beer.service.circuit.open").gauge().value()).isEqualTo(0);
+	}
+
+	@Test
+	void testFailedTrialCallReopensCircuit() {
+		failTimes(FAILURE_THRESHOLD);
+		clock.advance(OPEN_DURATION);
+
+		failTimes(1);
+
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.OPEN);
+		assertThrows(BeerServiceUnavailableException.class, () -> guard.call(this::succeed));
+
+		clock.advance(OPEN_DURATION);
+		assertThat(guard.call(this::succeed)).isEqualTo("beer");
+	}
+
+	@Test
+	void testTrialCallThrowingErrorReopensCircuit() {
+		failTimes(FAILURE_THRESHOLD);
+		clock.advance(OPEN_DURATION);
+
+		assertThrows(StackOverflowError.class, () -> guard.call(() -> {
+			throw new StackOverflowError();
+		}));
+
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.OPEN);
+		clock.advance(OPEN_DURATION);
+		assertThat(guard.call(this::succeed)).isEqualTo("beer");
+	}
+
+	@Test
+	void testOnlyOneTrialCallWhileHalfOpen() throws Exception {
+		guard = new BeerServiceCallGuard(2, Duration.ofMillis(50), FAILURE_THRESHOLD, OPEN_DURATION, meterRegistry, clock);
+		failTimes(FAILURE_THRESHOLD);
+		clock.advance(OPEN_DURATION);
+
+		CountDownLatch trialStarted = new CountDownLatch(1);
+		CountDownLatch finishTrial = new CountDownLatch(1);
+		CompletableFuture<String> trial = CompletableFuture.supplyAsync(() -> guard.call(() -> {
+			trialStarted.countDown();
+			await(finishTrial);
+			return "trial";
+		}));
+		assertThat(trialStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.HALF_OPEN);
+		assertThrows(BeerServiceUnavailableException.class, () -> guard.call(this::succeed));
+
+		finishTrial.countDown();
+		assertThat(trial.get(5, TimeUnit.SECONDS)).isEqualTo("trial");
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.CLOSED);
+	}
+
+	@Test
+	void testBulkheadRejectsCallsBeyondLimit() throws Exception {
+		CountDownLatch callStarted = new CountDownLatch(1);
+		CountDownLatch finishCall = new CountDownLatch(1);
+		CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> guard.call(() -> {
+			callStarted.countDown();
+			await(finishCall);
+			return "running";
+		}));
+		assertThat(callStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThrows(BeerServiceUnavailableException.class, () -> guard.call(this::succeed));
+		assertThat(rejections("bulkhead")).isEqualTo(1);
+
+		finishCall.countDown();
+		assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("running");
+		assertThat(guard.call(this::succeed)).isEqualTo("beer");
+		assertThat(guard.getState()).isEqualTo(BeerServiceCallGuard.State.CLOSED);
+	}
+
+	private String succeed() {
+		calls.incrementAndGet();
+		return "beer";
+	}
+
+	private void failTimes(int times) {
+		for (int i = 0; i < times; i++) {
+			assertThrows(ResourceAccessException.class, () -> guard.call(() -> {
+				calls.incrementAndGet();
+				throw new ResourceAccessException("Connection refused");
+			}));
+		}
+	}
+
+	private double rejections(String reason) {
+		return meterRegistry.get("beer.service.calls.rejected").tag("reason", reason).counter().count();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class MutableClock extends Clock {
+		private Instant now = Instant.parse("2020-08-01T12:00:00Z");
+
+		void advance(Duration duration) {
+			now = now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
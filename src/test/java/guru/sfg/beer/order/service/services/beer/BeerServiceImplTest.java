@@ -0,0 +1,96 @@
+package guru.sfg.beer.order.service.services.beer;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import guru.sfg.brewery.model.BeerDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.notFound;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BeerServiceImplTest {
+
+	WireMockServer wireMockServer;
+	BeerServiceImpl beerService;
+
+	BeerDto mangoBobs = beer("0631234200036", "Mango Bobs");
+	BeerDto galaxyCat = beer("0631234300019", "Galaxy Cat");
+
+	@BeforeEach
+	void setUp() {
+		wireMockServer = new WireMockServer(wireMockConfig().dynamicPort());
+		wireMockServer.start();
+
+		BeerServiceCallGuard guard = new BeerServiceCallGuard(4, Duration.ofSeconds(1), 5, Duration.ofSeconds(30),
+				new SimpleMeterRegistry());
+		beerService = new BeerServiceImpl(new RestTemplate(), guard, new SyncTaskExecutor());
+		beerService.setBeerServiceHost(wireMockServer.baseUrl());
+	}
+
+	@AfterEach
+	void tearDown() {
+		wireMockServer.stop();
+	}
+
+	@Test
+	void testBulkLookupResolvesAllUpcsWithOneRequest() {
+		wireMockServer.stubFor(get(urlPathEqualTo(BeerServiceImpl.BEER_UPCS_PATH_V1))
+				.willReturn(okJson("[" + json(mangoBobs) + "," + json(galaxyCat) + "]")));
+
+		Map<String, BeerDto> beers = beerService.getBeersByUpc(
+				List.of(mangoBobs.getUpc(), galaxyCat.getUpc(), mangoBobs.getUpc()));
+
+		assertThat(beers).containsOnlyKeys(mangoBobs.getUpc(), galaxyCat.getUpc());
+		wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(BeerServiceImpl.BEER_UPCS_PATH_V1))
+				.withQueryParam(BeerServiceImpl.UPC_PARAM, equalTo(mangoBobs.getUpc()))
+				.withQueryParam(BeerServiceImpl.UPC_PARAM, equalTo(galaxyCat.getUpc())));
+		wireMockServer.verify(0, getRequestedFor(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*")));
+	}
+
+	@Test
+	void testMissingBulkEndpointFallsBackToSingleLookupsForGood() {
+		wireMockServer.stubFor(get(urlPathEqualTo(BeerServiceImpl.BEER_UPCS_PATH_V1)).willReturn(notFound()));
+		wireMockServer.stubFor(get(urlEqualTo(BeerServiceImpl.BEER_UPC_PATH_V1 + mangoBobs.getUpc()))
+				.willReturn(okJson(json(mangoBobs))));
+		wireMockServer.stubFor(get(urlEqualTo(BeerServiceImpl.BEER_UPC_PATH_V1 + "unknown")).willReturn(notFound()));
+
+		Map<String, BeerDto> first = beerService.getBeersByUpc(List.of(mangoBobs.getUpc(), "unknown"));
+		Map<String, BeerDto> second = beerService.getBeersByUpc(List.of(mangoBobs.getUpc(), "unknown"));
+
+		assertThat(first).containsOnlyKeys(mangoBobs.getUpc());
+		assertThat(second).containsOnlyKeys(mangoBobs.getUpc());
+		assertThat(first.get(mangoBobs.getUpc()).getBeerName()).isEqualTo(mangoBobs.getBeerName());
+		wireMockServer.verify(1, getRequestedFor(urlPathEqualTo(BeerServiceImpl.BEER_UPCS_PATH_V1)));
+		wireMockServer.verify(2, getRequestedFor(urlEqualTo(BeerServiceImpl.BEER_UPC_PATH_V1 + "unknown")));
+	}
+
+	private static String json(BeerDto beer) {
+		return String.format("{\"id\":\"%s\",\"upc\":\"%s\",\"beerName\":\"%s\"}",
+				beer.getId(), beer.getUpc(), beer.getBeerName());
+	}
+
+	private static BeerDto beer(String upc, String beerName) {
+		return BeerDto.builder()
+				.id(UUID.nameUUIDFromBytes(upc.getBytes()))
+				.upc(upc)
+				.beerName(beerName)
+				.build();
+	}
+}
@@ -0,0 +1,181 @@
+package guru.sfg.beer.order.service.services.beer;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import guru.sfg.brewery.model.BeerDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingBeerServiceTest {
+
+	private static final Duration EXPIRE_AFTER_WRITE = Duration.ofHours(1);
+	private static final Duration REFRESH_AFTER_WRITE = Duration.ofMinutes(5);
+
+	@Mock
+	BeerServiceImpl beerServiceImpl;
+
+	AtomicLong nanos = new AtomicLong();
+	CachingBeerService cachingBeerService;
+
+	BeerDto mangoBobs = beer("0631234200036", "Mango Bobs");
+
+	@BeforeEach
+	void setUp() {
+		Ticker ticker = nanos::get;
+		cachingBeerService = new CachingBeerService(beerServiceImpl, new SimpleMeterRegistry(), 100,
+				EXPIRE_AFTER_WRITE, REFRESH_AFTER_WRITE, ticker, Runnable::run);
+	}
+
+	@Test
+	void testHitSkipsDelegate() {
+		when(beerServiceImpl.getBeerByUpc(mangoBobs.getUpc())).thenReturn(Optional.of(mangoBobs));
+
+		assertThat(cachingBeerService.getBeerByUpc(mangoBobs.getUpc())).contains(mangoBobs);
+		assertThat(cachingBeerService.getBeerByUpc(mangoBobs.getUpc())).contains(mangoBobs);
+		assertThat(cachingBeerService.getBeerById(mangoBobs.getId())).contains(mangoBobs);
+		assertThat(cachingBeerService.getBeerByUpcAsync(mangoBobs.getUpc())).isCompletedWithValue(Optional.of(mangoBobs));
+
+		verify(beerServiceImpl, times(1)).getBeerByUpc(mangoBobs.getUpc());
+		verify(beerServiceImpl, never()).getBeerById(any());
+		verify(beerServiceImpl, never()).getBeerByUpcAsync(any());
+	}
+
+	@Test
+	void testMissingUpcIsNotCached() {
+		when(beerServiceImpl.getBeerByUpc("unknown")).thenReturn(Optional.empty());
+
+		assertThat(cachingBeerService.getBeerByUpc("unknown")).isEmpty();
+		assertThat(cachingBeerService.getBeerByUpc("unknown")).isEmpty();
+
+		verify(beerServiceImpl, times(2)).getBeerByUpc("unknown");
+	}
+
+	@Test
+	void testEntryIsRefreshedAfterRefreshInterval() {
+		BeerDto renamed = beer(mangoBobs.getUpc(), "Mango Bobs Reloaded");
+		when(beerServiceImpl.getBeerByUpc(mangoBobs.getUpc()))
+				.thenReturn(Optional.of(mangoBobs))
+				.thenReturn(Optional.of(renamed));
+
+		cachingBeerService.getBeerByUpc(mangoBobs.getUpc());
+		advance(REFRESH_AFTER_WRITE.plusSeconds(1));
+
+		// the stale value is served while the refresh runs
+		assertThat(cachingBeerService.getBeerByUpc(mangoBobs.getUpc())).contains(mangoBobs);
+		assertThat(cachingBeerService.getBeerByUpc(mangoBobs.getUpc())).contains(renamed);
+
+		verify(beerServiceImpl, times(2)).getBeerByUpc(mangoBobs.getUpc());
+	}
+
+	@Test
+	void testRefreshOfRemovedBeerDropsEntry() {
+		when(beerServiceImpl.getBeerByUpc(mangoBobs.getUpc()))
+				.thenReturn(Optional.of(mangoBobs))
+				.thenReturn(Optional.empty());
+
+		cachingBeerService.getBeerByUpc(mangoBobs.getUpc());
+		advance(REFRESH_AFTER_WRITE.plusSeconds(1));
+		cachingBeerService.getBeerByUpc(mangoBobs.getUpc());
+
+		assertThat(cachingBeerService.getBeerByUpc(mangoBobs.getUpc())).isEmpty();
+	}
+
+	@Test
+	void testExpiredEntryIsLoadedAgain() {
+		BeerDto renamed = beer(mangoBobs.getUpc(), "Mango Bobs Reloaded");
+		when(beerServiceImpl.getBeerByUpc(mangoBobs.getUpc()))
+				.thenReturn(Optional.of(mangoBobs))
+				.thenReturn(Optional.of(renamed));
+
+		cachingBeerService.getBeerByUpc(mangoBobs.getUpc());
+		advance(EXPIRE_AFTER_WRITE.plusSeconds(1));
+
+		assertThat(cachingBeerService.getBeerByUpc(mangoBobs.getUpc())).contains(renamed);
+	}
+
+	@Test
+	void testBulkLookupOnlyAsksForMissingUpcs() {
+		BeerDto galaxyCat = beer("0631234300019", "Galaxy Cat");
+		when(beerServiceImpl.getBeerByUpc(mangoBobs.getUpc())).thenReturn(Optional.of(mangoBobs));
+		when(beerServiceImpl.getBeersByUpc(List.of(galaxyCat.getUpc(), "unknown")))
+				.thenReturn(Map.of(galaxyCat.getUpc(), galaxyCat));
+
+		cachingBeerService.getBeerByUpc(mangoBobs.getUpc());
+		Map<String, BeerDto> beers = cachingBeerService.getBeersByUpc(
+				List.of(mangoBobs.getUpc(), galaxyCat.getUpc(), "unknown"));
+
+		assertThat(beers).containsOnly(Map.entry(mangoBobs.getUpc(), mangoBobs),
+				Map.entry(galaxyCat.getUpc(), galaxyCat));
+		assertThat(cachingBeerService.getBeerById(galaxyCat.getId())).contains(galaxyCat);
+		verify(beerServiceImpl, never()).getBeerById(any());
+	}
+
+	@Test
+	void testConcurrentMissesShareOneLoad() {
+		List<Runnable> tasks = new ArrayList<>();
+		CachingBeerService queuedLoads = new CachingBeerService(beerServiceImpl, new SimpleMeterRegistry(), 100,
+				EXPIRE_AFTER_WRITE, REFRESH_AFTER_WRITE, nanos::get, tasks::add);
+		when(beerServiceImpl.getBeerByUpc(mangoBobs.getUpc())).thenReturn(Optional.of(mangoBobs));
+
+		CompletableFuture<Optional<BeerDto>> first = queuedLoads.getBeerByUpcAsync(mangoBobs.getUpc());
+		CompletableFuture<Optional<BeerDto>> second = queuedLoads.getBeerByUpcAsync(mangoBobs.getUpc());
+
+		assertThat(first).isNotDone();
+		// the cache may queue maintenance work on the same executor
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+
+		assertThat(first).isCompletedWithValue(Optional.of(mangoBobs));
+		assertThat(second).isCompletedWithValue(Optional.of(mangoBobs));
+		verify(beerServiceImpl, times(1)).getBeerByUpc(mangoBobs.getUpc());
+	}
+
+	@Test
+	void testRejectedLoadIsReportedAsUnavailable() {
+		CachingBeerService saturated = new CachingBeerService(beerServiceImpl, new SimpleMeterRegistry(), 100,
+				EXPIRE_AFTER_WRITE, REFRESH_AFTER_WRITE, nanos::get, task -> {
+			throw new RejectedExecutionException("queue is full");
+		});
+
+		assertThat(saturated.getBeerByUpcAsync(mangoBobs.getUpc()))
+				.hasFailedWithThrowableThat().isInstanceOf(BeerServiceUnavailableException.class);
+		assertThatThrownBy(() -> saturated.getBeerByUpc(mangoBobs.getUpc()))
+				.isInstanceOf(BeerServiceUnavailableException.class);
+		verify(beerServiceImpl, never()).getBeerByUpc(any());
+	}
+
+	private void advance(Duration duration) {
+		nanos.addAndGet(duration.toNanos());
+	}
+
+	private static BeerDto beer(String upc, String beerName) {
+		return BeerDto.builder()
+				.id(UUID.nameUUIDFromBytes(upc.getBytes()))
+				.upc(upc)
+				.beerName(beerName)
+				.build();
+	}
+}
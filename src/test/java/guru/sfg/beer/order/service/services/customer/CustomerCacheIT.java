@@ -0,0 +1,128 @@
+package guru.sfg.beer.order.service.services.customer;
+
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.repositories.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the local customer cache against H2 with committed transactions, which is when the cache is invalidated. The
+ * cache is created once per context, its invalidation listener being registered with the session factory.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CustomerCache.class, SimpleMeterRegistry.class})
+public class CustomerCacheIT {
+
+	@Autowired
+	CustomerCache customerCache;
+
+	@Autowired
+	CustomerRepository customerRepository;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void tearDown() {
+		customerRepository.deleteAll();
+	}
+
+	@Test
+	void testRepeatedLookupsAreServedFromCache() {
+		Customer customer = save("Cache Hit");
+		double idHits = hits("customer.id");
+		double apiKeyHits = hits("customer.api-key");
+
+		assertThat(customerCache.findById(customer.getId())).hasValueSatisfying(found ->
+				assertThat(found.getCustomerName()).isEqualTo("Cache Hit"));
+		assertThat(customerCache.findById(customer.getId())).isPresent();
+		assertThat(customerCache.findByApiKey(customer.getApiKey())).isPresent();
+		assertThat(customerCache.findByApiKey(customer.getApiKey())).isPresent();
+
+		assertThat(hits("customer.id")).isEqualTo(idHits + 1);
+		assertThat(hits("customer.api-key")).isEqualTo(apiKeyHits + 1);
+	}
+
+	@Test
+	void testCommittedUpdateInvalidates() {
+		Customer customer = save("Before Update");
+		assertThat(customerCache.findById(customer.getId())).isPresent();
+		assertThat(customerCache.findAllByCustomerNameLike("After%")).isEmpty();
+
+		inTransaction(() -> {
+			Customer loaded = customerRepository.findById(customer.getId()).orElseThrow();
+			loaded.setCustomerName("After Update");
+			return loaded;
+		});
+
+		assertThat(customerCache.findById(customer.getId())).hasValueSatisfying(found ->
+				assertThat(found.getCustomerName()).isEqualTo("After Update"));
+		assertThat(customerCache.findAllByCustomerNameLike("After%")).hasSize(1);
+	}
+
+	@Test
+	void testCommittedInsertInvalidatesNameLookups() {
+		save("Tasting Room A");
+		assertThat(customerCache.findAllByCustomerNameLike("Tasting Room%")).hasSize(1);
+
+		save("Tasting Room B");
+
+		assertThat(customerCache.findAllByCustomerNameLike("Tasting Room%")).hasSize(2);
+	}
+
+	@Test
+	void testRolledBackUpdateKeepsCachedCustomer() {
+		Customer customer = save("Rolled Back");
+		assertThat(customerCache.findById(customer.getId())).isPresent();
+		double idHits = hits("customer.id");
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			customerRepository.findById(customer.getId()).orElseThrow().setCustomerName("Never Committed");
+			customerRepository.flush();
+			status.setRollbackOnly();
+		});
+
+		assertThat(customerCache.findById(customer.getId())).hasValueSatisfying(found ->
+				assertThat(found.getCustomerName()).isEqualTo("Rolled Back"));
+		assertThat(hits("customer.id")).isEqualTo(idHits + 1);
+	}
+
+	@Test
+	void testUnknownCustomerIsEmpty() {
+		assertThat(customerCache.findById(UUID.randomUUID())).isEmpty();
+		assertThat(customerCache.findByApiKey(UUID.randomUUID())).isEmpty();
+	}
+
+	private Customer save(String customerName) {
+		return inTransaction(() -> customerRepository.save(Customer.builder()
+				.customerName(customerName)
+				.apiKey(UUID.randomUUID())
+				.build()));
+	}
+
+	private <T> T inTransaction(Supplier<T> action) {
+		return new TransactionTemplate(transactionManager).execute(status -> action.get());
+	}
+
+	private double hits(String cache) {
+		return meterRegistry.get("cache.gets").tags("cache", cache, "result", "hit").functionCounter().count();
+	}
+}
@@ -0,0 +1,149 @@
+package guru.sfg.beer.order.service.services.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.services.beer.BeerService;
+import guru.sfg.beer.order.service.web.mappers.BeerOrderMapper;
+import guru.sfg.brewery.model.BeerOrderDto;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports against H2 with a fetch size smaller than the number of orders, so the cursor is read in several fetches.
+ */
+@DataJpaTest(properties = "sfg.brewery.export.fetch-size=2")
+@Import({BeerOrderExporter.class, BeerOrderExporterIT.MapperConfig.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class BeerOrderExporterIT {
+
+	private static final int LINES_PER_ORDER = 2;
+
+	@Configuration
+	@ComponentScan(basePackageClasses = BeerOrderMapper.class)
+	static class MapperConfig {
+	}
+
+	@Autowired
+	BeerOrderExporter beerOrderExporter;
+
+	@Autowired
+	TestEntityManager testEntityManager;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@MockBean
+	BeerService beerService;
+
+	Customer customer;
+	List<UUID> newOrderIds = new ArrayList<>();
+	List<UUID> allOrderIds = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		customer = testEntityManager.persist(Customer.builder()
+				.customerName("Export")
+				.apiKey(UUID.randomUUID())
+				.build());
+
+		for (int i = 0; i < 5; i++) {
+			BeerOrderStatusEnum status = i % 2 == 0 ? BeerOrderStatusEnum.NEW : BeerOrderStatusEnum.PICKED_UP;
+			UUID id = persistOrder(status);
+
+			allOrderIds.add(id);
+			if (status == BeerOrderStatusEnum.NEW) {
+				newOrderIds.add(id);
+			}
+		}
+		testEntityManager.clear();
+	}
+
+	@Test
+	void testOrdersAreWrittenOneLineEachOldestFirst() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		long count = beerOrderExporter.export(customer, null, null, null, outputStream);
+
+		List<BeerOrderDto> beerOrderDtos = read(outputStream);
+		assertThat(count).isEqualTo(allOrderIds.size());
+		assertThat(beerOrderDtos).extracting(BeerOrderDto::getId).containsExactlyElementsOf(allOrderIds);
+		beerOrderDtos.forEach(beerOrderDto -> assertThat(beerOrderDto.getBeerOrderLines()).hasSize(LINES_PER_ORDER));
+	}
+
+	@Test
+	void testOrdersAreFilteredByStatusAndCreatedDate() throws IOException {
+		ByteArrayOutputStream byStatus = new ByteArrayOutputStream();
+		ByteArrayOutputStream fromTomorrow = new ByteArrayOutputStream();
+		ByteArrayOutputStream untilTomorrow = new ByteArrayOutputStream();
+		Timestamp tomorrow = new Timestamp(System.currentTimeMillis() + 86_400_000L);
+
+		beerOrderExporter.export(customer, BeerOrderStatusEnum.NEW, null, null, byStatus);
+		beerOrderExporter.export(customer, null, tomorrow, null, fromTomorrow);
+		beerOrderExporter.export(customer, null, null, tomorrow, untilTomorrow);
+
+		assertThat(read(byStatus)).extracting(BeerOrderDto::getId).containsExactlyElementsOf(newOrderIds);
+		assertThat(fromTomorrow.size()).isZero();
+		assertThat(read(untilTomorrow)).hasSize(allOrderIds.size());
+	}
+
+	@Test
+	void testExportedOrdersAreEvicted() throws IOException {
+		beerOrderExporter.export(customer, null, null, null, new ByteArrayOutputStream());
+
+		// at most the customer of the orders is left in the persistence context
+		assertThat(testEntityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount())
+				.isLessThanOrEqualTo(1);
+	}
+
+	private UUID persistOrder(BeerOrderStatusEnum status) {
+		BeerOrder beerOrder = BeerOrder.builder()
+				.customer(customer)
+				.orderStatus(status)
+				.build();
+
+		Set<BeerOrderLine> lines = new HashSet<>();
+		for (int i = 0; i < LINES_PER_ORDER; i++) {
+			lines.add(BeerOrderLine.builder()
+					.beerOrder(beerOrder)
+					.upc("063123420003" + i)
+					.orderQuantity(i + 1)
+					.build());
+		}
+		beerOrder.setBeerOrderLines(lines);
+
+		return testEntityManager.persistFlushFind(beerOrder).getId();
+	}
+
+	private List<BeerOrderDto> read(ByteArrayOutputStream outputStream) throws IOException {
+		List<BeerOrderDto> beerOrderDtos = new ArrayList<>();
+		for (String line : outputStream.toString(StandardCharsets.UTF_8).split("\n")) {
+			beerOrderDtos.add(objectMapper.readValue(line, BeerOrderDto.class));
+		}
+		return beerOrderDtos;
+	}
+}
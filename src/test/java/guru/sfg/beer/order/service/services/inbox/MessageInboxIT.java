@@ -0,0 +1,200 @@
+package guru.sfg.beer.order.service.services.inbox;
+
+import guru.sfg.beer.order.service.repositories.InboxMessageRepository;
+import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.events.AllocateOrderResult;
+import guru.sfg.brewery.model.events.ValidateOrderResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Value;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the inbox against H2. Each test starts with a fresh inbox; a second instance over the same table stands in
+ * for another consumer, or this one after a restart, that has nothing cached.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MessageInboxIT {
+
+	private static final Duration RETENTION = Duration.ofDays(1);
+
+	@Autowired
+	InboxMessageRepository inboxMessageRepository;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	SimpleMeterRegistry meterRegistry;
+	MessageInbox messageInbox;
+	List<Object> processed = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		messageInbox = newInbox();
+	}
+
+	@AfterEach
+	void tearDown() {
+		inboxMessageRepository.deleteAll();
+	}
+
+	@Test
+	void testRedeliveredValidationResultIsDropped() {
+		Received<ValidateOrderResult> result = received(new ValidateOrderResult(UUID.randomUUID(), true));
+
+		process(messageInbox, result);
+		process(messageInbox, result);
+		process(newInbox(), result);
+
+		assertThat(processed).containsExactly(result.getPayload());
+		assertThat(duplicates()).isEqualTo(2);
+	}
+
+	@Test
+	void testDistinctAllocationResultsOfOneOrderVersionAreProcessed() {
+		UUID beerOrderId = UUID.randomUUID();
+		Received<AllocateOrderResult> pendingInventory = received(allocationResult(beerOrderId, 1, true));
+		Received<AllocateOrderResult> allocated = received(allocationResult(beerOrderId, 1, false));
+
+		process(messageInbox, pendingInventory);
+		process(messageInbox, allocated);
+		process(newInbox(), allocated);
+
+		assertThat(processed).containsExactly(pendingInventory.getPayload(), allocated.getPayload());
+		assertThat(duplicates()).isEqualTo(1);
+	}
+
+	@Test
+	void testKeyIsMessageIdAndOrderId() {
+		UUID beerOrderId = UUID.randomUUID();
+
+		assertThat(MessageInbox.key("ID:1", beerOrderId))
+				.isEqualTo(MessageInbox.key("ID:1", beerOrderId))
+				.isNotEqualTo(MessageInbox.key("ID:2", beerOrderId))
+				.isNotEqualTo(MessageInbox.key("ID:1", UUID.randomUUID()));
+	}
+
+	@Test
+	void testFailedWorkIsNotRecorded() {
+		Received<ValidateOrderResult> result = received(new ValidateOrderResult(UUID.randomUUID(), true));
+
+		assertThrows(IllegalStateException.class, () -> messageInbox.process(key(result),
+				result.getPayload().getOrderId(), () -> {
+					throw new IllegalStateException("transition failed");
+				}));
+		process(messageInbox, result);
+
+		assertThat(processed).containsExactly(result.getPayload());
+		assertThat(inboxMessageRepository.existsById(key(result))).isTrue();
+	}
+
+	@Test
+	void testBatchDropsDuplicatesWithinAndAcrossBatches() {
+		Received<ValidateOrderResult> first = received(new ValidateOrderResult(UUID.randomUUID(), true));
+		Received<ValidateOrderResult> second = received(new ValidateOrderResult(UUID.randomUUID(), false));
+		Received<ValidateOrderResult> third = received(new ValidateOrderResult(UUID.randomUUID(), true));
+
+		processAll(messageInbox, List.of(first, second, first));
+		processAll(newInbox(), List.of(second, third));
+
+		assertThat(processed).containsExactly(first.getPayload(), second.getPayload(), third.getPayload());
+		assertThat(duplicates()).isEqualTo(2);
+	}
+
+	@Test
+	void testPurgeDeletesKeysOlderThanRetention() {
+		Received<ValidateOrderResult> old = received(new ValidateOrderResult(UUID.randomUUID(), true));
+		Received<ValidateOrderResult> recent = received(new ValidateOrderResult(UUID.randomUUID(), true));
+		process(messageInbox, old);
+		process(messageInbox, recent);
+		receivedAt(key(old), Instant.now().minus(RETENTION).minusSeconds(60));
+
+		messageInbox.purge();
+
+		assertThat(inboxMessageRepository.existsById(key(old))).isFalse();
+		assertThat(inboxMessageRepository.existsById(key(recent))).isTrue();
+	}
+
+	private MessageInbox newInbox() {
+		return new MessageInbox(inboxMessageRepository, entityManager, transactionManager, meterRegistry, 100,
+				RETENTION);
+	}
+
+	private void process(MessageInbox inbox, Received<?> received) {
+		inbox.process(key(received), received.getBeerOrderId(), () -> processed.add(received.getPayload()));
+	}
+
+	private void processAll(MessageInbox inbox, List<Received<ValidateOrderResult>> results) {
+		inbox.processAll(results, MessageInboxIT::key, Received::getBeerOrderId, accepted ->
+				accepted.forEach(received -> processed.add(received.getPayload())));
+	}
+
+	private void receivedAt(String messageKey, Instant receivedDate) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> entityManager
+				.createNativeQuery("update inbox_message set received_date = ?1 where message_key = ?2")
+				.setParameter(1, Timestamp.from(receivedDate))
+				.setParameter(2, messageKey)
+				.executeUpdate());
+	}
+
+	private double duplicates() {
+		return meterRegistry.counter("beer.order.inbox.duplicates").count();
+	}
+
+	private static String key(Received<?> received) {
+		return MessageInbox.key(received.getMessageId(), received.getBeerOrderId());
+	}
+
+	private static Received<ValidateOrderResult> received(ValidateOrderResult result) {
+		return new Received<>(messageId(), result.getOrderId(), result);
+	}
+
+	private static Received<AllocateOrderResult> received(AllocateOrderResult result) {
+		return new Received<>(messageId(), result.getBeerOrderDto().getId(), result);
+	}
+
+	private static String messageId() {
+		return "ID:" + UUID.randomUUID();
+	}
+
+	private static AllocateOrderResult allocationResult(UUID beerOrderId, int version, boolean pendingInventory) {
+		return AllocateOrderResult.builder()
+				.beerOrderDto(BeerOrderDto.builder().id(beerOrderId).version(version).build())
+				.allocationError(false)
+				.pendingInventory(pendingInventory)
+				.build();
+	}
+
+	/**
+	 * A result as the listeners see it: the payload and the id the broker gave its message.
+	 */
+	@Value
+	private static class Received<T> {
+		String messageId;
+		UUID beerOrderId;
+		T payload;
+	}
+}
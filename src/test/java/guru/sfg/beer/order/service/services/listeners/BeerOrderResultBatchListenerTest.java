@@ -0,0 +1,202 @@
+package guru.sfg.beer.order.service.services.listeners;
+
+import guru.sfg.beer.order.service.config.JmsConfig;
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter;
+import guru.sfg.beer.order.service.services.BeerOrderManager;
+import guru.sfg.beer.order.service.services.OrderAffinityDispatcher;
+import guru.sfg.beer.order.service.services.inbox.MessageInbox;
+import guru.sfg.brewery.model.events.ValidateOrderResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.JmsAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.artemis.ArtemisAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.TextMessage;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(classes = {JmsConfig.class, BeerOrderResultBatchListener.class, OrderAffinityDispatcher.class,
+		SimpleMeterRegistry.class}, properties = {
+		BeerOrderResultBatchListener.BATCH_ENABLED_PROPERTY + "=true",
+		"sfg.brewery.jms.batch.window=500"})
+@ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, JacksonAutoConfiguration.class, ArtemisAutoConfiguration.class, JmsAutoConfiguration.class})
+// the embedded broker is shared by the contexts of a test run, so the listener must not outlive this class
+@DirtiesContext
+public class BeerOrderResultBatchListenerTest {
+
+	private static final String DEAD_LETTER_QUEUE = "DLQ";
+
+	@Autowired
+	JmsTemplate jmsTemplate;
+
+	@Autowired
+	BeerOrderResultBatchListener beerOrderResultBatchListener;
+
+	@MockBean
+	BeerOrderManager beerOrderManager;
+
+	@MockBean
+	MessageInbox messageInbox;
+
+	Queue<Batch> batches = new ConcurrentLinkedQueue<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		doAnswer(invocation -> {
+			List<Object> messages = invocation.getArgument(0);
+			Consumer<List<Object>> work = invocation.getArgument(3);
+			work.accept(messages);
+			return null;
+		}).when(messageInbox).processAll(any(), any(), any(), any());
+
+		jmsTemplate.setReceiveTimeout(JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT);
+		while (jmsTemplate.receive(DEAD_LETTER_QUEUE) != null) {
+			// drop what earlier tests left behind
+		}
+	}
+
+	@Test
+	void testResultsAreProcessedInBatchesOffTheSchedulerThread() {
+		recordBatches();
+		List<UUID> orderIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+		sendTogether(orderIds.stream().map(this::validResult).collect(Collectors.toList()), List.of());
+
+		await().untilAsserted(() -> assertThat(processedOrderIds()).containsExactlyElementsOf(orderIds));
+		assertThat(batches).hasSize(1);
+		assertThat(batches.peek().getThread()).isEqualTo("result-batch-" + JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE);
+	}
+
+	@Test
+	void testFailingResultIsIsolatedFromItsBatch() {
+		UUID failing = UUID.randomUUID();
+		doAnswer(invocation -> {
+			List<ValidateOrderResult> results = invocation.getArgument(0);
+			batches.add(new Batch(results, Thread.currentThread().getName()));
+			if (results.stream().anyMatch(result -> result.getOrderId().equals(failing))) {
+				throw new IllegalStateException("cannot process order " + failing);
+			}
+			return null;
+		}).when(beerOrderManager).processValidationResults(any());
+		List<UUID> orderIds = List.of(UUID.randomUUID(), failing, UUID.randomUUID());
+
+		sendTogether(orderIds.stream().map(this::validResult).collect(Collectors.toList()), List.of());
+
+		await().untilAsserted(() -> assertThat(deadLetter()).isNotNull());
+		assertThat(successfulOrderIds(failing)).containsExactly(orderIds.get(0), orderIds.get(2));
+		assertThat(batches).filteredOn(batch -> batch.getOrderIds().contains(failing))
+				.hasSizeGreaterThan(1)
+				.last()
+				.satisfies(batch -> assertThat(batch.getOrderIds()).containsExactly(failing));
+	}
+
+	@Test
+	void testUnreadableMessageIsIsolatedFromItsBatch() throws Exception {
+		recordBatches();
+		List<UUID> orderIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+		sendTogether(orderIds.stream().map(this::validResult).collect(Collectors.toList()), List.of("{not json"));
+
+		await().untilAsserted(() -> assertThat(processedOrderIds()).containsExactlyInAnyOrderElementsOf(orderIds));
+		Message deadLetter = await().until(this::deadLetter, message -> message != null);
+		assertThat(((TextMessage) deadLetter).getText()).isEqualTo("{not json");
+	}
+
+	@Test
+	void testResultsAreProcessedAfterRestart() {
+		recordBatches();
+		List<UUID> orderIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+		beerOrderResultBatchListener.stop();
+		assertThat(beerOrderResultBatchListener.isRunning()).isFalse();
+		beerOrderResultBatchListener.start();
+
+		sendTogether(orderIds.stream().map(this::validResult).collect(Collectors.toList()), List.of());
+
+		await().untilAsserted(() -> assertThat(processedOrderIds()).containsExactlyElementsOf(orderIds));
+	}
+
+	private void recordBatches() {
+		doAnswer(invocation -> {
+			List<ValidateOrderResult> results = invocation.getArgument(0);
+			batches.add(new Batch(results, Thread.currentThread().getName()));
+			return null;
+		}).when(beerOrderManager).processValidationResults(any());
+	}
+
+	private void sendTogether(List<ValidateOrderResult> results, List<String> unreadable) {
+		jmsTemplate.execute(session -> {
+			MessageProducer producer = session.createProducer(session.createQueue(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE));
+			for (ValidateOrderResult result : results) {
+				producer.send(jmsTemplate.getMessageConverter().toMessage(result, session));
+			}
+			for (String text : unreadable) {
+				TextMessage message = session.createTextMessage(text);
+				message.setStringProperty(WireFormatMessageConverter.TYPE_ID_PROPERTY, ValidateOrderResult.class.getName());
+				producer.send(message);
+			}
+			producer.close();
+			return null;
+		}, true);
+	}
+
+	private Message deadLetter() {
+		return jmsTemplate.receive(DEAD_LETTER_QUEUE);
+	}
+
+	private List<UUID> processedOrderIds() {
+		return batches.stream()
+				.map(Batch::getOrderIds)
+				.flatMap(Collection::stream)
+				.collect(Collectors.toList());
+	}
+
+	private List<UUID> successfulOrderIds(UUID failing) {
+		return batches.stream()
+				.map(Batch::getOrderIds)
+				.filter(orderIds -> !orderIds.contains(failing))
+				.flatMap(Collection::stream)
+				.collect(Collectors.toList());
+	}
+
+	private ValidateOrderResult validResult(UUID orderId) {
+		return ValidateOrderResult.builder()
+				.orderId(orderId)
+				.isValid(true)
+				.build();
+	}
+
+	@Value
+	private static class Batch {
+		List<UUID> orderIds;
+		String thread;
+
+		Batch(List<ValidateOrderResult> results, String thread) {
+			this.orderIds = results.stream().map(ValidateOrderResult::getOrderId).collect(Collectors.toList());
+			this.thread = thread;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package guru.sfg.beer.order.service.services.outbox;
+
+import guru.sfg.beer.order.service.config.JmsConfig;
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter;
+import guru.sfg.beer.order.service.config.WireFormatMessageConverter.WireFormat;
+import guru.sfg.beer.order.service.domain.OutboxMessage;
+import guru.sfg.beer.order.service.repositories.OutboxMessageRepository;
+import guru.sfg.brewery.model.events.ValidateOrderResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.JmsAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.artemis.ArtemisAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Session;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Publishes through the outbox against H2 and the embedded broker. Nothing is scheduled in this context, so messages
+ * are only relayed by the after-commit trigger or by calling the relay directly.
+ */
+@DataJpaTest(properties = {
+		"spring.artemis.embedded.queues=" + OutboxIT.JSON_QUEUE + "," + OutboxIT.SMILE_QUEUE,
+		"sfg.brewery.jms.smile-destinations=" + OutboxIT.SMILE_QUEUE,
+		"spring.jms.template.receive-timeout=2000"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({JmsConfig.class, OutboxPublisher.class, OutboxRelay.class})
+@ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, JacksonAutoConfiguration.class, ArtemisAutoConfiguration.class, JmsAutoConfiguration.class})
+public class OutboxIT {
+
+	static final String JSON_QUEUE = "outbox-test";
+	static final String SMILE_QUEUE = "outbox-smile-test";
+
+	@Autowired
+	OutboxPublisher outboxPublisher;
+
+	@Autowired
+	OutboxMessageRepository outboxMessageRepository;
+
+	@Autowired
+	WireFormatMessageConverter messageConverter;
+
+	@Autowired
+	ConnectionFactory connectionFactory;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JmsTemplate jmsTemplate;
+
+	@AfterEach
+	void tearDown() {
+		outboxMessageRepository.deleteAll();
+	}
+
+	@Test
+	void testCommittedMessageIsPublished() {
+		ValidateOrderResult result = result();
+
+		inTransaction(() -> outboxPublisher.publish(JSON_QUEUE, result));
+
+		assertThat(jmsTemplate.receiveAndConvert(JSON_QUEUE)).isEqualTo(result);
+		await().untilAsserted(() -> assertThat(outboxMessageRepository.count()).isZero());
+	}
+
+	@Test
+	void testSmileMessageIsPublishedAsStored() {
+		ValidateOrderResult result = result();
+
+		inTransaction(() -> outboxPublisher.publish(SMILE_QUEUE, result));
+
+		assertThat(jmsTemplate.receiveAndConvert(SMILE_QUEUE)).isEqualTo(result);
+	}
+
+	@Test
+	void testRolledBackMessageIsNotPublished() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			outboxPublisher.publish(JSON_QUEUE, result());
+			status.setRollbackOnly();
+		});
+
+		jmsTemplate.setReceiveTimeout(500);
+		assertThat(jmsTemplate.receive(JSON_QUEUE)).isNull();
+		assertThat(outboxMessageRepository.count()).isZero();
+	}
+
+	@Test
+	void testMessagesAreRelayedInCreationOrder() {
+		List<ValidateOrderResult> results = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			results.add(result());
+		}
+
+		inTransaction(() -> results.forEach(result -> outboxPublisher.publish(JSON_QUEUE, result)));
+
+		for (ValidateOrderResult result : results) {
+			assertThat(jmsTemplate.receiveAndConvert(JSON_QUEUE)).isEqualTo(result);
+		}
+	}
+
+	@Test
+	void testMessageIsKeptWhenBrokerCommitFails() {
+		OutboxRelay relay = new OutboxRelay(outboxMessageRepository, failingFirstCommit(connectionFactory),
+				messageConverter, transactionManager, 100);
+		ValidateOrderResult result = result();
+		// stored without the publisher, which would trigger the relay of the context
+		inTransaction(() -> outboxMessageRepository.save(OutboxMessage.builder()
+				.destination(JSON_QUEUE)
+				.payloadType(ValidateOrderResult.class.getName())
+				.contentType(WireFormatMessageConverter.JSON_CONTENT_TYPE)
+				.body(messageConverter.encode(result, WireFormat.JSON))
+				.build()));
+
+		relay.relay();
+
+		assertThat(outboxMessageRepository.count()).isOne();
+		jmsTemplate.setReceiveTimeout(500);
+		assertThat(jmsTemplate.receive(JSON_QUEUE)).isNull();
+
+		relay.relay();
+
+		assertThat(outboxMessageRepository.count()).isZero();
+		assertThat(jmsTemplate.receiveAndConvert(JSON_QUEUE)).isEqualTo(result);
+		relay.close();
+	}
+
+	private void inTransaction(Runnable runnable) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> runnable.run());
+	}
+
+	private static ValidateOrderResult result() {
+		return ValidateOrderResult.builder()
+				.orderId(UUID.randomUUID())
+				.isValid(true)
+				.build();
+	}
+
+	/**
+	 * Wraps the connection factory so that the first session commit fails, as if the broker went away before it.
+	 */
+	private static ConnectionFactory failingFirstCommit(ConnectionFactory connectionFactory) {
+		AtomicInteger commits = new AtomicInteger();
+		return proxy(ConnectionFactory.class, connectionFactory, (factoryProxy, method, args) -> {
+			Object result = invoke(connectionFactory, method, args);
+			if (!(result instanceof Connection)) {
+				return result;
+			}
+			Connection connection = (Connection) result;
+			return proxy(Connection.class, connection, (connectionProxy, connectionMethod, connectionArgs) -> {
+				Object created = invoke(connection, connectionMethod, connectionArgs);
+				if (!(created instanceof Session)) {
+					return created;
+				}
+				Session session = (Session) created;
+				return proxy(Session.class, session, (sessionProxy, sessionMethod, sessionArgs) -> {
+					if (sessionMethod.getName().equals("commit") && commits.getAndIncrement() == 0) {
+						session.rollback();
+						throw new JMSException("broker unavailable");
+					}
+					return invoke(session, sessionMethod, sessionArgs);
+				});
+			});
+		});
+	}
+
+	private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(OutboxIT.class.getClassLoader(), new Class<?>[]{type}, handler));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package guru.sfg.beer.order.service.services.status;
+
+import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
+import guru.sfg.beer.order.service.services.BeerOrderService;
+import guru.sfg.beer.order.service.sm.BeerOrderStatusNotifier;
+import guru.sfg.beer.order.service.web.controllers.BeerOrderController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.VALIDATED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Subscribes through {@link BeerOrderController} on MockMvc, whose response collects the events as the sender
+ * thread writes them.
+ */
+@ExtendWith(MockitoExtension.class)
+public class BeerOrderStatusStreamsTest {
+
+	private static final int MAX_CONNECTIONS = 3;
+	private static final int MAX_CONNECTIONS_PER_CUSTOMER = 2;
+
+	@Mock
+	BeerOrderRepository beerOrderRepository;
+
+	@Mock
+	BeerOrderService beerOrderService;
+
+	BeerOrderStatusNotifier beerOrderStatusNotifier = new BeerOrderStatusNotifier();
+	BeerOrderStatusStreams beerOrderStatusStreams;
+	MockMvc mockMvc;
+
+	UUID customerId = UUID.randomUUID();
+	UUID beerOrderId = UUID.randomUUID();
+
+	@BeforeEach
+	void setUp() {
+		beerOrderStatusStreams = new BeerOrderStatusStreams(beerOrderRepository, beerOrderStatusNotifier,
+				new SimpleMeterRegistry(), MAX_CONNECTIONS, MAX_CONNECTIONS_PER_CUSTOMER, 100, Duration.ofMinutes(1), 1);
+		mockMvc = MockMvcBuilders.standaloneSetup(new BeerOrderController(beerOrderService)).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		beerOrderStatusStreams.close();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void testStatusChangeIsSentAfterCommit() throws Exception {
+		MockHttpServletResponse response = subscribe(customerId);
+		when(beerOrderRepository.findOwnerById(beerOrderId)).thenReturn(Optional.of(owner(customerId)));
+		await().untilAsserted(() -> assertThat(response.getContentAsString()).contains(":connected"));
+
+		TransactionSynchronizationManager.initSynchronization();
+		beerOrderStatusNotifier.statusChanged(beerOrderId, VALIDATED);
+
+		// nothing is queued until the commit
+		assertThat(response.getContentAsString()).doesNotContain(BeerOrderStatusStreams.STATUS_EVENT_NAME);
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+		await().untilAsserted(() -> assertThat(response.getContentAsString())
+				.contains("event:" + BeerOrderStatusStreams.STATUS_EVENT_NAME)
+				.contains(beerOrderId.toString())
+				.contains("\"orderStatus\":\"VALIDATED\"")
+				.contains("\"customerRef\":\"ref\""));
+	}
+
+	@Test
+	void testOtherCustomersChangesAreNotSent() throws Exception {
+		MockHttpServletResponse response = subscribe(customerId);
+		when(beerOrderRepository.findOwnerById(beerOrderId)).thenReturn(Optional.of(owner(UUID.randomUUID())));
+
+		beerOrderStatusNotifier.statusChanged(beerOrderId, VALIDATED);
+		beerOrderStatusStreams.heartbeat();
+
+		// events of one connection are sent in order, so the change would have come before the heartbeat
+		await().untilAsserted(() -> assertThat(response.getContentAsString()).contains(":heartbeat"));
+		assertThat(response.getContentAsString()).doesNotContain(BeerOrderStatusStreams.STATUS_EVENT_NAME);
+	}
+
+	@Test
+	void testOwnerIsNotLookedUpWithoutStreams() {
+		beerOrderStatusNotifier.statusChanged(beerOrderId, VALIDATED);
+
+		verify(beerOrderRepository, never()).findOwnerById(any());
+	}
+
+	@Test
+	void testConnectionsAreLimitedPerCustomerAndInTotal() throws Exception {
+		UUID otherCustomerId = UUID.randomUUID();
+
+		for (int i = 0; i < MAX_CONNECTIONS_PER_CUSTOMER; i++) {
+			subscribe(customerId);
+		}
+		mockMvc.perform(get(url(customerId))).andExpect(status().isTooManyRequests());
+
+		subscribe(otherCustomerId);
+		mockMvc.perform(get(url(otherCustomerId))).andExpect(status().isTooManyRequests());
+	}
+
+	private MockHttpServletResponse subscribe(UUID customerId) throws Exception {
+		when(beerOrderService.streamStatusUpdates(customerId))
+				.thenAnswer(invocation -> beerOrderStatusStreams.subscribe(customerId));
+
+		return mockMvc.perform(get(url(customerId)))
+				.andExpect(request().asyncStarted())
+				.andReturn()
+				.getResponse();
+	}
+
+	private static String url(UUID customerId) {
+		return "/api/v1/customers/" + customerId + "/orders/status-events";
+	}
+
+	private static BeerOrderRepository.OrderOwner owner(UUID customerId) {
+		return new BeerOrderRepository.OrderOwner() {
+			@Override
+			public UUID getCustomerId() {
+				return customerId;
+			}
+
+			@Override
+			public String getCustomerRef() {
+				return "ref";
+			}
+
+			@Override
+			public Long getVersion() {
+				return 1L;
+			}
+		};
+	}
+}
@@ -0,0 +1,137 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
+import guru.sfg.beer.order.service.repositories.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.statemachine.action.Action;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.UUID;
+
+import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.VALIDATE_ORDER;
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.NEW;
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.VALIDATION_PENDING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs transitions through {@link SpringStateMachineTransitionEngine} and the real interceptor against the database,
+ * each test managing its own transactions.
+ */
+@DataJpaTest
+@Import({BeerOrderStateMachineConfig.class, BeerOrderStateMachinePool.class, BeerOrderStateChangeInterceptor.class,
+		BeerOrderStatusNotifier.class, SpringStateMachineTransitionEngine.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BeerOrderStateChangeInterceptorIT {
+
+	@Autowired
+	BeerOrderTransitionEngine beerOrderTransitionEngine;
+
+	@Autowired
+	BeerOrderRepository beerOrderRepository;
+
+	@Autowired
+	CustomerRepository customerRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	EntityManager entityManager;
+
+	@MockBean(name = "validateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateOrderAction;
+	@MockBean(name = "allocateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocateOrderAction;
+	@MockBean(name = "validateFailureAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateFailureAction;
+	@MockBean(name = "allocationFailureAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocationFailureAction;
+	@MockBean(name = "deallocateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> deallocateOrderAction;
+
+	TransactionTemplate transaction;
+	TransactionTemplate concurrentTransaction;
+	Customer customer;
+	UUID beerOrderId;
+
+	@BeforeEach
+	void setUp() {
+		transaction = new TransactionTemplate(transactionManager);
+		concurrentTransaction = new TransactionTemplate(transactionManager);
+		concurrentTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		customer = customerRepository.save(Customer.builder()
+				.customerName("Interceptor")
+				.apiKey(UUID.randomUUID())
+				.build());
+		beerOrderId = beerOrderRepository.save(BeerOrder.builder()
+				.customer(customer)
+				.customerRef("ref")
+				.orderStatus(NEW)
+				.build()).getId();
+	}
+
+	@Test
+	void testManagedOrderIsDetachedAfterTransition() {
+		transaction.executeWithoutResult(status -> {
+			BeerOrder beerOrder = beerOrderRepository.findById(beerOrderId).orElseThrow();
+			beerOrder.setCustomerRef("pending");
+
+			assertThat(beerOrderTransitionEngine.sendEvent(beerOrderId, NEW, VALIDATE_ORDER)).isTrue();
+			assertThat(entityManager.contains(beerOrder)).isFalse();
+			assertThat(beerOrder.getOrderStatus()).isEqualTo(VALIDATION_PENDING);
+
+			// loaded again with the version written by the status update
+			BeerOrder reloaded = beerOrderRepository.findById(beerOrderId).orElseThrow();
+			assertThat(reloaded.getCustomerRef()).isEqualTo("pending");
+			assertThat(reloaded.getOrderStatus()).isEqualTo(VALIDATION_PENDING);
+			reloaded.setCustomerRef("changed");
+			beerOrderRepository.flush();
+		});
+
+		BeerOrder saved = beerOrderRepository.findById(beerOrderId).orElseThrow();
+		assertThat(saved.getOrderStatus()).isEqualTo(VALIDATION_PENDING);
+		assertThat(saved.getCustomerRef()).isEqualTo("changed");
+		assertThat(saved.getVersion()).isEqualTo(3L);
+	}
+
+	@Test
+	void testConcurrentTransitionFailsAndRollsBack() {
+		assertThrows(BeerOrderStatusConflictException.class, () -> transaction.executeWithoutResult(status -> {
+			Customer changed = customerRepository.findById(customer.getId()).orElseThrow();
+			changed.setCustomerName("Rolled Back");
+			customerRepository.flush();
+
+			BeerOrder beerOrder = beerOrderRepository.findById(beerOrderId).orElseThrow();
+			assertThat(beerOrder.getOrderStatus()).isEqualTo(NEW);
+
+			// another transaction takes the order out of NEW while this one still sees it there
+			concurrentTransaction.executeWithoutResult(concurrent ->
+					assertThat(beerOrderTransitionEngine.sendEvent(beerOrderId, NEW, VALIDATE_ORDER)).isTrue());
+
+			beerOrderTransitionEngine.sendEvent(beerOrderId, NEW, VALIDATE_ORDER);
+		}));
+
+		BeerOrder saved = beerOrderRepository.findById(beerOrderId).orElseThrow();
+		assertThat(saved.getOrderStatus()).isEqualTo(VALIDATION_PENDING);
+		assertThat(saved.getVersion()).isEqualTo(1L);
+		assertThat(customerRepository.findById(customer.getId()).orElseThrow().getCustomerName())
+				.isEqualTo("Interceptor");
+	}
+}
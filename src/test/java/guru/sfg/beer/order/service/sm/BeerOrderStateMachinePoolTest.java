@@ -0,0 +1,85 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.Lifecycle;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.action.Action;
+
+import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.VALIDATE_ORDER;
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.ALLOCATED;
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.NEW;
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.VALIDATION_PENDING;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+
+@SpringBootTest(classes = {BeerOrderStateMachineConfig.class, BeerOrderStateMachinePool.class, SimpleMeterRegistry.class},
+		properties = "sfg.brewery.state-machine-pool-size=1")
+public class BeerOrderStateMachinePoolTest {
+
+	@Autowired
+	BeerOrderStateMachinePool pool;
+
+	@MockBean(answer = Answers.CALLS_REAL_METHODS)
+	BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor;
+
+	@MockBean(name = "validateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateOrderAction;
+	@MockBean(name = "allocateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocateOrderAction;
+	@MockBean(name = "validateFailureAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateFailureAction;
+	@MockBean(name = "allocationFailureAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocationFailureAction;
+	@MockBean(name = "deallocateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> deallocateOrderAction;
+
+	@BeforeEach
+	void setUp() {
+		doNothing().when(beerOrderStateChangeInterceptor).preStateChange(any(), any(), any(), any());
+	}
+
+	@Test
+	void testReleasedMachineIsResetBeforeReuse() {
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = pool.acquire(NEW);
+		sm.getExtendedState().getVariables().put("leftover", "value");
+		assertThat(sm.sendEvent(VALIDATE_ORDER)).isTrue();
+		assertThat(sm.getState().getId()).isEqualTo(VALIDATION_PENDING);
+
+		pool.release(sm);
+
+		assertThat(((Lifecycle) sm).isRunning()).isFalse();
+		assertThat(sm.getExtendedState().getVariables()).isEmpty();
+
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> reused = pool.acquire(ALLOCATED);
+
+		assertThat(reused).isSameAs(sm);
+		assertThat(reused.getState().getId()).isEqualTo(ALLOCATED);
+		assertThat(reused.getExtendedState().getVariables()).isEmpty();
+		assertThat(reused.hasStateMachineError()).isFalse();
+		assertThat(reused.sendEvent(VALIDATE_ORDER)).isFalse();
+		pool.release(reused);
+	}
+
+	@Test
+	void testMachineBeyondPoolSizeIsDiscarded() {
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> first = pool.acquire(NEW);
+		StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> second = pool.acquire(NEW);
+
+		assertThat(second).isNotSameAs(first);
+
+		pool.release(first);
+		pool.release(second);
+
+		assertThat(pool.acquire(NEW)).isSameAs(first);
+		assertThat(pool.acquire(NEW)).isNotSameAs(second);
+	}
+}
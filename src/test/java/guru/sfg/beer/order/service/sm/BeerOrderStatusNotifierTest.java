@@ -0,0 +1,100 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.ALLOCATED;
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.VALIDATED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BeerOrderStatusNotifierTest {
+
+	private final BeerOrderStatusNotifier notifier = new BeerOrderStatusNotifier();
+	private final UUID beerOrderId = UUID.randomUUID();
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void testWaiterOnOtherThreadCompletesAfterCommit() throws Exception {
+		CompletableFuture<BeerOrderStatusEnum> validated = awaitOnOtherThread(VALIDATED);
+
+		TransactionSynchronizationManager.initSynchronization();
+		notifier.statusChanged(beerOrderId, VALIDATED);
+
+		assertThat(validated).isNotDone();
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+		assertThat(validated).isCompletedWithValue(VALIDATED);
+		assertThat(notifier.pendingWaiters(beerOrderId)).isZero();
+	}
+
+	@Test
+	void testWaiterOnOtherThreadIsNotCompletedOnRollback() throws Exception {
+		CompletableFuture<BeerOrderStatusEnum> validated = awaitOnOtherThread(VALIDATED);
+
+		TransactionSynchronizationManager.initSynchronization();
+		notifier.statusChanged(beerOrderId, VALIDATED);
+		TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		assertThat(validated).isNotDone();
+	}
+
+	@Test
+	void testWaiterOnTransitionThreadCompletesImmediately() {
+		CompletableFuture<BeerOrderStatusEnum> validated = notifier.awaitStatus(beerOrderId, VALIDATED);
+
+		TransactionSynchronizationManager.initSynchronization();
+		notifier.statusChanged(beerOrderId, VALIDATED);
+
+		assertThat(validated).isCompletedWithValue(VALIDATED);
+	}
+
+	@Test
+	void testWaiterCompletesImmediatelyWithoutTransaction() throws Exception {
+		CompletableFuture<BeerOrderStatusEnum> validated = awaitOnOtherThread(VALIDATED);
+
+		notifier.statusChanged(beerOrderId, VALIDATED);
+
+		assertThat(validated).isCompletedWithValue(VALIDATED);
+	}
+
+	@Test
+	void testWaiterIgnoresOtherStatus() {
+		CompletableFuture<BeerOrderStatusEnum> allocated = notifier.awaitStatus(beerOrderId, ALLOCATED);
+
+		notifier.statusChanged(beerOrderId, VALIDATED);
+
+		assertThat(allocated).isNotDone();
+		assertThat(notifier.pendingWaiters(beerOrderId)).isEqualTo(1);
+	}
+
+	@Test
+	void testTimedOutWaiterIsRemovedWhenCancelled() {
+		CompletableFuture<BeerOrderStatusEnum> allocated = notifier.awaitStatus(beerOrderId, ALLOCATED);
+
+		assertThrows(TimeoutException.class, () -> allocated.get(10, TimeUnit.MILLISECONDS));
+		allocated.cancel(false);
+
+		assertThat(notifier.pendingWaiters(beerOrderId)).isZero();
+	}
+
+	private CompletableFuture<BeerOrderStatusEnum> awaitOnOtherThread(BeerOrderStatusEnum statusEnum) throws Exception {
+		return CompletableFuture.supplyAsync(() -> notifier.awaitStatus(beerOrderId, statusEnum)).get();
+	}
+}
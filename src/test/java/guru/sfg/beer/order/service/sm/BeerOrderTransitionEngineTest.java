@@ -0,0 +1,151 @@
+package guru.sfg.beer.order.service.sm;
+
+import guru.sfg.beer.order.service.domain.BeerOrderEventEnum;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.config.StateMachineFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static guru.sfg.beer.order.service.domain.BeerOrderEventEnum.VALIDATE_ORDER;
+import static guru.sfg.beer.order.service.domain.BeerOrderStatusEnum.NEW;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs every (status, event) pair through both transition engines, with the actions and the status save mocked,
+ * and checks that they accept the same events, invoke the same actions and save the same target status.
+ */
+@SpringBootTest(classes = {BeerOrderStateMachineConfig.class, BeerOrderStateMachinePool.class, SimpleMeterRegistry.class})
+public class BeerOrderTransitionEngineTest {
+
+	private static final int CONFIGURED_TRANSITIONS = 12;
+
+	@Autowired
+	StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+
+	@Autowired
+	BeerOrderStateMachinePool beerOrderStateMachinePool;
+
+	@MockBean(answer = Answers.CALLS_REAL_METHODS)
+	BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor;
+
+	@MockBean(name = "validateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateOrderAction;
+	@MockBean(name = "allocateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocateOrderAction;
+	@MockBean(name = "validateFailureAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateFailureAction;
+	@MockBean(name = "allocationFailureAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocationFailureAction;
+	@MockBean(name = "deallocateOrderAction")
+	Action<BeerOrderStatusEnum, BeerOrderEventEnum> deallocateOrderAction;
+
+	BeerOrderTransitionEngine springEngine;
+	BeerOrderTransitionEngine tableEngine;
+	Map<String, Action<BeerOrderStatusEnum, BeerOrderEventEnum>> actions;
+	UUID beerOrderId = UUID.randomUUID();
+
+	@BeforeEach
+	void setUp() {
+		springEngine = new SpringStateMachineTransitionEngine(beerOrderStateMachinePool);
+		tableEngine = new TableDrivenTransitionEngine(stateMachineFactory, beerOrderStateChangeInterceptor);
+
+		actions = new LinkedHashMap<>();
+		actions.put("validateOrderAction", validateOrderAction);
+		actions.put("allocateOrderAction", allocateOrderAction);
+		actions.put("validateFailureAction", validateFailureAction);
+		actions.put("allocationFailureAction", allocationFailureAction);
+		actions.put("deallocateOrderAction", deallocateOrderAction);
+
+		doReturn(true).when(beerOrderStateChangeInterceptor).saveStatus(anyString(), any(), any());
+	}
+
+	@Test
+	void testEnginesMatchForEveryStatusAndEvent() {
+		int accepted = 0;
+
+		for (BeerOrderStatusEnum status : BeerOrderStatusEnum.values()) {
+			for (BeerOrderEventEnum event : BeerOrderEventEnum.values()) {
+				Outcome spring = run(springEngine, status, event);
+				Outcome table = run(tableEngine, status, event);
+
+				assertThat(table).as("%s on %s", event, status).isEqualTo(spring);
+				if (spring.isAccepted()) {
+					accepted++;
+				}
+			}
+		}
+
+		assertThat(accepted).isEqualTo(CONFIGURED_TRANSITIONS);
+	}
+
+	@Test
+	void testSpringEngineFailsTransitionWhenActionThrows() {
+		assertActionFailureThrows(springEngine);
+	}
+
+	@Test
+	void testTableEngineFailsTransitionWhenActionThrows() {
+		assertActionFailureThrows(tableEngine);
+	}
+
+	private void assertActionFailureThrows(BeerOrderTransitionEngine engine) {
+		IllegalStateException failure = new IllegalStateException("outbox unavailable");
+		doThrow(failure).when(validateOrderAction).execute(any());
+
+		BeerOrderTransitionException e = assertThrows(BeerOrderTransitionException.class,
+				() -> engine.sendEvent(beerOrderId, NEW, VALIDATE_ORDER));
+
+		assertThat(e).hasCause(failure);
+		verify(beerOrderStateChangeInterceptor, never()).saveStatus(anyString(), any(), any());
+	}
+
+	private Outcome run(BeerOrderTransitionEngine engine, BeerOrderStatusEnum status, BeerOrderEventEnum event) {
+		clearInvocations(beerOrderStateChangeInterceptor);
+		actions.values().forEach(action -> clearInvocations(action));
+
+		boolean accepted = engine.sendEvent(beerOrderId, status, event);
+
+		ArgumentCaptor<BeerOrderStatusEnum> target = ArgumentCaptor.forClass(BeerOrderStatusEnum.class);
+		verify(beerOrderStateChangeInterceptor, atMost(1)).saveStatus(eq(beerOrderId.toString()), eq(status),
+				target.capture());
+
+		List<String> invokedActions = actions.entrySet().stream()
+				.filter(action -> !mockingDetails(action.getValue()).getInvocations().isEmpty())
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+
+		return new Outcome(accepted, invokedActions, target.getAllValues().isEmpty() ? null : target.getValue());
+	}
+
+	@Value
+	private static class Outcome {
+		boolean accepted;
+		List<String> actions;
+		BeerOrderStatusEnum target;
+	}
+}
@@ -0,0 +1,68 @@
+package guru.sfg.beer.order.service.web.controllers;
+
+import guru.sfg.beer.order.service.repositories.BeerOrderRepository;
+import guru.sfg.beer.order.service.services.BeerOrderManager;
+import guru.sfg.beer.order.service.services.BeerOrderServiceImpl;
+import guru.sfg.beer.order.service.services.customer.CustomerCache;
+import guru.sfg.beer.order.service.services.export.BeerOrderExporter;
+import guru.sfg.beer.order.service.services.status.BeerOrderStatusStreams;
+import guru.sfg.beer.order.service.web.mappers.BeerOrderMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class BeerOrderControllerTest {
+
+	@Mock
+	BeerOrderRepository beerOrderRepository;
+	@Mock
+	CustomerCache customerCache;
+	@Mock
+	BeerOrderMapper beerOrderMapper;
+	@Mock
+	BeerOrderManager beerOrderManager;
+	@Mock
+	BeerOrderExporter beerOrderExporter;
+	@Mock
+	BeerOrderStatusStreams beerOrderStatusStreams;
+
+	MockMvc mockMvc;
+	UUID customerId = UUID.randomUUID();
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.standaloneSetup(new BeerOrderController(new BeerOrderServiceImpl(beerOrderRepository,
+				customerCache, beerOrderMapper, beerOrderManager, beerOrderExporter, beerOrderStatusStreams))).build();
+	}
+
+	@Test
+	void testCursorListingOfUnknownCustomerIsNotFound() throws Exception {
+		when(customerCache.findById(customerId)).thenReturn(Optional.empty());
+
+		mockMvc.perform(get("/api/v1/customers/" + customerId + "/orders/cursor"))
+				.andExpect(status().isNotFound());
+
+		verifyNoInteractions(beerOrderRepository);
+	}
+
+	@Test
+	void testInvalidCursorIsBadRequest() throws Exception {
+		mockMvc.perform(get("/api/v1/customers/" + customerId + "/orders/cursor").param("cursor", "not a cursor"))
+				.andExpect(status().isBadRequest());
+
+		verifyNoInteractions(customerCache);
+	}
+}
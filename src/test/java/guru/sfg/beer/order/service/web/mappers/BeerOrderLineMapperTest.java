@@ -0,0 +1,101 @@
+package guru.sfg.beer.order.service.web.mappers;
+
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.beer.order.service.services.beer.BeerService;
+import guru.sfg.brewery.model.BeerDto;
+import guru.sfg.brewery.model.BeerOrderLineDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = BeerOrderLineMapperTest.MapperConfig.class, properties = {
+		"sfg.brewery.beer-lookup.parallel=true",
+		"sfg.brewery.beer-lookup.deadline=200ms"})
+public class BeerOrderLineMapperTest {
+
+	@Configuration
+	@ComponentScan(basePackageClasses = BeerOrderLineMapper.class)
+	static class MapperConfig {
+	}
+
+	@Autowired
+	BeerOrderLineMapper beerOrderLineMapper;
+
+	@MockBean
+	BeerService beerService;
+
+	BeerDto mangoBobs = beer("0631234200036", "Mango Bobs");
+
+	@Test
+	void testLinesMissingTheDeadlineAreMappedWithoutBeerDetails() {
+		CompletableFuture<Optional<BeerDto>> slowLookup = new CompletableFuture<>();
+		when(beerService.getBeerByUpcAsync(mangoBobs.getUpc())).thenReturn(CompletableFuture.completedFuture(Optional.of(mangoBobs)));
+		when(beerService.getBeerByUpcAsync("slow")).thenReturn(slowLookup);
+		when(beerService.getBeerByUpcAsync("failing"))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("beer service down")));
+
+		long start = System.nanoTime();
+		List<BeerOrderLineDto> lineDtos = beerOrderLineMapper.beerOrderLinesToDto(
+				List.of(line(mangoBobs.getUpc()), line("slow"), line("failing")));
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(lineDtos)
+				.extracting(BeerOrderLineDto::getUpc, BeerOrderLineDto::getBeerName)
+				.containsExactly(
+						tuple(mangoBobs.getUpc(), mangoBobs.getBeerName()),
+						tuple("slow", null),
+						tuple("failing", null));
+		assertThat(elapsedMillis).isBetween(200L, 2_000L);
+		// the lookup is left to the beer service timeouts, a late answer does not change the mapped lines
+		assertThat(slowLookup).isNotDone();
+		verify(beerService, never()).getBeersByUpc(anyCollection());
+	}
+
+	@Test
+	void testLookupsFinishingBeforeTheDeadlineDoNotWaitForIt() {
+		when(beerService.getBeerByUpcAsync(mangoBobs.getUpc())).thenReturn(CompletableFuture.completedFuture(Optional.of(mangoBobs)));
+		when(beerService.getBeerByUpcAsync("unknown")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+		long start = System.nanoTime();
+		List<BeerOrderLineDto> lineDtos = beerOrderLineMapper.beerOrderLinesToDto(
+				List.of(line(mangoBobs.getUpc()), line("unknown")));
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(lineDtos)
+				.extracting(BeerOrderLineDto::getUpc, BeerOrderLineDto::getBeerName)
+				.containsExactly(tuple(mangoBobs.getUpc(), mangoBobs.getBeerName()), tuple("unknown", null));
+		assertThat(elapsedMillis).isLessThan(200L);
+	}
+
+	private static BeerOrderLine line(String upc) {
+		return BeerOrderLine.builder()
+				.id(UUID.randomUUID())
+				.upc(upc)
+				.orderQuantity(2)
+				.quantityAllocated(0)
+				.build();
+	}
+
+	private static BeerDto beer(String upc, String beerName) {
+		return BeerDto.builder()
+				.id(UUID.nameUUIDFromBytes(upc.getBytes()))
+				.upc(upc)
+				.beerName(beerName)
+				.build();
+	}
+}
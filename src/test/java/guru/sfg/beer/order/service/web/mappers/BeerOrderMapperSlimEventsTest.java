@@ -0,0 +1,80 @@
+package guru.sfg.beer.order.service.web.mappers;
+
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.services.beer.BeerService;
+import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.BeerOrderLineDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.sql.Timestamp;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@SpringBootTest(classes = BeerOrderMapperTest.MapperConfig.class, properties = "sfg.brewery.jms.slim-events=true")
+public class BeerOrderMapperSlimEventsTest {
+
+	@Autowired
+	BeerOrderMapper beerOrderMapper;
+
+	@MockBean
+	BeerService beerService;
+
+	@Test
+	void testSlimEventKeepsOnlyIdsAndQuantities() {
+		BeerOrderLine line = BeerOrderLine.builder()
+				.id(UUID.randomUUID())
+				.version(2L)
+				.createdDate(new Timestamp(System.currentTimeMillis()))
+				.beerId(UUID.randomUUID())
+				.upc("0631234200036")
+				.orderQuantity(12)
+				.quantityAllocated(5)
+				.build();
+		BeerOrder beerOrder = BeerOrder.builder()
+				.id(UUID.randomUUID())
+				.version(4L)
+				.createdDate(new Timestamp(System.currentTimeMillis()))
+				.lastModifiedDate(new Timestamp(System.currentTimeMillis()))
+				.customerRef("slim")
+				.customer(Customer.builder().id(UUID.randomUUID()).customerName("Tasting Room").build())
+				.orderStatus(BeerOrderStatusEnum.VALIDATED)
+				.orderStatusCallbackUrl("http://localhost/callback")
+				.beerOrderLines(Set.of(line))
+				.build();
+		line.setBeerOrder(beerOrder);
+
+		BeerOrderDto beerOrderDto = beerOrderMapper.beerOrderToEventDto(beerOrder);
+
+		assertThat(beerOrderDto.getId()).isEqualTo(beerOrder.getId());
+		assertThat(beerOrderDto.getVersion()).isEqualTo(4);
+		assertThat(beerOrderDto.getCustomerRef()).isEqualTo("slim");
+		assertThat(beerOrderDto.getCustomerId()).isNull();
+		assertThat(beerOrderDto.getOrderStatus()).isNull();
+		assertThat(beerOrderDto.getOrderStatusCallbackUrl()).isNull();
+		assertThat(beerOrderDto.getCreatedDate()).isNull();
+		assertThat(beerOrderDto.getLastModifiedDate()).isNull();
+
+		assertThat(beerOrderDto.getBeerOrderLines())
+				.extracting(BeerOrderLineDto::getId, BeerOrderLineDto::getBeerId, BeerOrderLineDto::getUpc,
+						BeerOrderLineDto::getOrderQuantity, BeerOrderLineDto::getQuantityAllocated)
+				.containsExactly(tuple(line.getId(), line.getBeerId(), line.getUpc(), 12, 5));
+		assertThat(beerOrderDto.getBeerOrderLines()).allSatisfy(lineDto -> {
+			assertThat(lineDto.getVersion()).isNull();
+			assertThat(lineDto.getCreatedDate()).isNull();
+			assertThat(lineDto.getBeerName()).isNull();
+			assertThat(lineDto.getBeerStyle()).isNull();
+			assertThat(lineDto.getPrice()).isNull();
+		});
+		verifyNoInteractions(beerService);
+	}
+}
@@ -0,0 +1,183 @@
+package guru.sfg.beer.order.service.web.mappers;
+
+import guru.sfg.beer.order.service.domain.BeerOrder;
+import guru.sfg.beer.order.service.domain.BeerOrderLine;
+import guru.sfg.beer.order.service.domain.BeerOrderStatusEnum;
+import guru.sfg.beer.order.service.domain.Customer;
+import guru.sfg.beer.order.service.services.beer.BeerService;
+import guru.sfg.brewery.model.BeerDto;
+import guru.sfg.brewery.model.BeerOrderDto;
+import guru.sfg.brewery.model.BeerOrderLineDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = BeerOrderMapperTest.MapperConfig.class)
+public class BeerOrderMapperTest {
+
+	@Configuration
+	@ComponentScan(basePackageClasses = BeerOrderMapper.class)
+	static class MapperConfig {
+	}
+
+	@Autowired
+	BeerOrderMapper beerOrderMapper;
+
+	@MockBean
+	BeerService beerService;
+
+	BeerDto mangoBobs = beer("0631234200036", "Mango Bobs");
+	BeerDto galaxyCat = beer("0631234300019", "Galaxy Cat");
+	BeerDto pinball = beer("0083783375213", "Pinball Porter");
+
+	@Test
+	void testPageIsMappedWithOneBulkLookup() {
+		when(beerService.getBeersByUpc(anyCollection())).thenReturn(Map.of(
+				mangoBobs.getUpc(), mangoBobs, galaxyCat.getUpc(), galaxyCat, pinball.getUpc(), pinball));
+
+		BeerOrder first = order(Set.of(line(mangoBobs.getUpc()), line(galaxyCat.getUpc())));
+		BeerOrder second = order(Set.of(line(pinball.getUpc())));
+
+		List<BeerOrderDto> beerOrderDtos = beerOrderMapper.beerOrdersToDto(List.of(first, second));
+
+		assertLinesMapped(first, beerOrderDtos.get(0));
+		assertLinesMapped(second, beerOrderDtos.get(1));
+		verify(beerService, times(1)).getBeersByUpc(anyCollection());
+		verify(beerService, never()).getBeerByUpc(mangoBobs.getUpc());
+	}
+
+	@Test
+	void testLinesArePairedWhenIterationOrderChanges() {
+		when(beerService.getBeersByUpc(anyCollection())).thenReturn(Map.of(
+				mangoBobs.getUpc(), mangoBobs, galaxyCat.getUpc(), galaxyCat, pinball.getUpc(), pinball));
+
+		BeerOrder beerOrder = order(new ReversingSet<>(List.of(
+				line(mangoBobs.getUpc()), line(galaxyCat.getUpc()), line(pinball.getUpc()))));
+
+		List<BeerOrderDto> beerOrderDtos = beerOrderMapper.beerOrdersToDto(List.of(beerOrder));
+
+		assertLinesMapped(beerOrder, beerOrderDtos.get(0));
+	}
+
+	@Test
+	void testLineOfUnknownBeerIsMappedWithoutBeerDetails() {
+		when(beerService.getBeersByUpc(anyCollection())).thenReturn(Map.of(mangoBobs.getUpc(), mangoBobs));
+
+		BeerOrder beerOrder = order(Set.of(line(mangoBobs.getUpc()), line("unknown")));
+
+		BeerOrderDto beerOrderDto = beerOrderMapper.beerOrdersToDto(List.of(beerOrder)).get(0);
+
+		assertThat(beerOrderDto.getBeerOrderLines())
+				.extracting(BeerOrderLineDto::getUpc, BeerOrderLineDto::getBeerName)
+				.containsExactlyInAnyOrder(
+						tuple(mangoBobs.getUpc(), mangoBobs.getBeerName()),
+						tuple("unknown", null));
+	}
+
+	@Test
+	void testEventCarriesFullOrderWithoutSlimEvents() {
+		when(beerService.getBeersByUpc(anyCollection())).thenReturn(Map.of(mangoBobs.getUpc(), mangoBobs));
+
+		BeerOrder beerOrder = order(Set.of(line(mangoBobs.getUpc())));
+		beerOrder.setCustomer(Customer.builder().id(UUID.randomUUID()).build());
+		beerOrder.setOrderStatus(BeerOrderStatusEnum.VALIDATED);
+
+		BeerOrderDto beerOrderDto = beerOrderMapper.beerOrderToEventDto(beerOrder);
+
+		assertThat(beerOrderDto.getCustomerId()).isEqualTo(beerOrder.getCustomer().getId());
+		assertThat(beerOrderDto.getOrderStatus()).isEqualTo(BeerOrderStatusEnum.VALIDATED.name());
+		assertLinesMapped(beerOrder, beerOrderDto);
+	}
+
+	private void assertLinesMapped(BeerOrder beerOrder, BeerOrderDto beerOrderDto) {
+		assertThat(beerOrderDto.getId()).isEqualTo(beerOrder.getId());
+		assertThat(beerOrderDto.getBeerOrderLines()).hasSize(beerOrder.getBeerOrderLines().size());
+
+		beerOrderDto.getBeerOrderLines().forEach(lineDto -> {
+			BeerOrderLine line = beerOrder.getBeerOrderLines().stream()
+					.filter(orderLine -> orderLine.getId().equals(lineDto.getId()))
+					.findFirst()
+					.orElseThrow();
+
+			assertThat(lineDto.getUpc()).isEqualTo(line.getUpc());
+			assertThat(lineDto.getBeerName()).isEqualTo(beerByUpc(line.getUpc()).getBeerName());
+		});
+	}
+
+	private BeerDto beerByUpc(String upc) {
+		return List.of(mangoBobs, galaxyCat, pinball).stream()
+				.filter(beerDto -> beerDto.getUpc().equals(upc))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private static BeerOrder order(Set<BeerOrderLine> lines) {
+		BeerOrder beerOrder = BeerOrder.builder()
+				.id(UUID.randomUUID())
+				.customerRef("mapper")
+				.build();
+		lines.forEach(line -> line.setBeerOrder(beerOrder));
+		beerOrder.setBeerOrderLines(lines);
+		return beerOrder;
+	}
+
+	private static BeerOrderLine line(String upc) {
+		return BeerOrderLine.builder()
+				.id(UUID.randomUUID())
+				.upc(upc)
+				.orderQuantity(2)
+				.quantityAllocated(0)
+				.build();
+	}
+
+	private static BeerDto beer(String upc, String beerName) {
+		return BeerDto.builder()
+				.id(UUID.nameUUIDFromBytes(upc.getBytes()))
+				.upc(upc)
+				.beerName(beerName)
+				.build();
+	}
+
+	/**
+	 * Iterates its elements in the opposite order on every pass, as a set is free to do.
+	 */
+	private static class ReversingSet<E> extends AbstractSet<E> {
+		private final List<E> elements;
+
+		private ReversingSet(Collection<E> elements) {
+			this.elements = new ArrayList<>(elements);
+		}
+
+		@Override
+		public Iterator<E> iterator() {
+			Collections.reverse(elements);
+			return new ArrayList<>(elements).iterator();
+		}
+
+		@Override
+		public int size() {
+			return elements.size();
+		}
+	}
+}